@@ -0,0 +1,25 @@
+package org.example.commands;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// runs JMH and keeps the results: unless -rf/-rff are given, every run is written to
+// results/<date-time>.json so two runs can be compared later (e.g. on jmh.morethan.io).
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        if (!arguments.contains("-rf") && !arguments.contains("-rff")) {
+            Path results = Path.of("results");
+            Files.createDirectories(results);
+            String name = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH-mm-ss")) + ".json";
+            arguments.addAll(List.of("-rf", "json", "-rff", results.resolve(name).toString()));
+        }
+        org.openjdk.jmh.Main.main(arguments.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.commands;
+
+import org.example.enumeration.FileType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// the delete loop: every file of a fresh tree purged for good ("purge") or moved to the trash ("trash").
+// the trash lives in a temp home folder for the run, so the real ~/.ordo-trash is never touched.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeleteBenchmark {
+
+    @Param({"WIDE", "SMALL_FILES"})
+    public SyntheticTree.Shape shape;
+
+    @Param({"10000"})
+    public int files;
+
+    @Param({"purge", "trash"})
+    public String mode;
+
+    private Path home;
+    private Path root;
+    private List<FileEntry> selection;
+
+    @Setup(Level.Trial)
+    public void redirectHome() throws IOException {
+        Quiet.start();
+        home = Files.createTempDirectory("ordo-bench-home-");
+        System.setProperty("user.home", home.toString());
+    }
+
+    // a new tree for every measurement, deleting it is what is measured
+    @Setup(Level.Iteration)
+    public void create() throws IOException {
+        root = SyntheticTree.create(shape, files, 0);
+        selection = FileFetcher.getAllFiles(List.of(root), true, FileType.FILE, FileWalker.defaultThreads());
+    }
+
+    @TearDown(Level.Iteration)
+    public void delete() throws IOException {
+        SyntheticTree.delete(root);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteHome() throws IOException {
+        SyntheticTree.delete(home);
+        Quiet.stop();
+    }
+
+    @Benchmark
+    public long deleteAll() throws IOException {
+        if (mode.equals("purge")) {
+            PurgeEngine engine = new PurgeEngine(FileWalker.defaultThreads());
+            engine.purge(selection);
+            return engine.filesDeleted();
+        }
+
+        long trashed = 0;
+        try (TrashStore trash = new TrashStore()) {
+            for (FileEntry file : selection) {
+                trash.moveToTrash(file);
+                trashed++;
+            }
+        }
+        return trashed;
+    }
+}
@@ -0,0 +1,92 @@
+package org.example.commands;
+
+import org.example.enumeration.FileType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// FileFetcher.getFiles with every filter, and getAllFiles, on the tree shapes of SyntheticTree.
+// e.g. java -jar target/benchmarks.jar FileFetcherBenchmark -p files=1000000 -p shape=WIDE
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileFetcherBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Tree {
+        @Param({"WIDE", "DEEP", "SMALL_FILES"})
+        public SyntheticTree.Shape shape;
+
+        @Param({"10000"})
+        public int files;
+
+        // 0 means the default (number of CPU cores)
+        @Param({"0"})
+        public int threads;
+
+        Path root;
+
+        @Setup(Level.Trial)
+        public void create() throws IOException {
+            root = SyntheticTree.create(shape, files, 0);
+            if (threads <= 0) {
+                threads = FileWalker.defaultThreads();
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void delete() throws IOException {
+            SyntheticTree.delete(root);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Filter {
+        @Param({"none", "extension", "size", "date", "glob", "exclude", "all"})
+        public String filter;
+
+        FileFilter fileFilter;
+
+        @Setup(Level.Trial)
+        public void compile() {
+            fileFilter = switch (filter) {
+                case "none" -> FileFilter.of(FileType.FILE);
+                case "extension" -> new FileFilter(FileType.FILE, null, "jpg", 0, 0, null, null, 0);
+                case "size" -> new FileFilter(FileType.FILE, null, null, 0.006, 0.002, null, null, 0);
+                case "date" -> new FileFilter(FileType.FILE, LocalDate.now(), null, 0, 0, null, null, 0);
+                case "glob" -> new FileFilter(FileType.FILE, null, null, 0, 0, List.of("file1*"), null, 0);
+                case "exclude" -> new FileFilter(FileType.FILE, null, null, 0, 0, null, List.of("d1", "level5*"), 0);
+                case "all" -> new FileFilter(FileType.FILE, LocalDate.now(), "jpg", 0.006, 0.002, List.of("file1*"), List.of("d1"), 0);
+                default -> throw new IllegalArgumentException("unknown filter " + filter);
+            };
+        }
+    }
+
+    @Benchmark
+    public List<FileEntry> getFiles(Tree tree, Filter filter) throws IOException {
+        return FileFetcher.getFiles(List.of(tree.root), true, filter.fileFilter, tree.threads);
+    }
+
+    @Benchmark
+    public List<FileEntry> getAllFiles(Tree tree) throws IOException {
+        return FileFetcher.getAllFiles(List.of(tree.root), true, FileType.BOTH, tree.threads);
+    }
+}
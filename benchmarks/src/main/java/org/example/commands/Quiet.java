@@ -0,0 +1,28 @@
+package org.example.commands;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+// the commands print a line per file, which would end up measuring the terminal.
+// swaps System.out for a stream that drops everything while a benchmark runs.
+class Quiet {
+
+    private static PrintStream original;
+
+    private Quiet() {
+    }
+
+    static synchronized void start() {
+        if (original == null) {
+            original = System.out;
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        }
+    }
+
+    static synchronized void stop() {
+        if (original != null) {
+            System.setOut(original);
+            original = null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.example.commands;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.example.enumeration.FileType;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// new names for a whole folder: giveNewName for every file plus the collision handling of RenamePlan.
+// "same" sends every file to one name (the worst case for collisions), "sequence" uses {seq}.
+// nothing is renamed, so every invocation sees the same folder.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RenameBenchmark {
+
+    @Param({"1000", "10000"})
+    public int files;
+
+    @Param({"same", "sequence"})
+    public String pattern;
+
+    private Path root;
+    private RenameCommand command;
+    private List<Path> paths;
+
+    @Setup(Level.Trial)
+    public void create() throws IOException {
+        root = SyntheticTree.create(SyntheticTree.Shape.WIDE, files, 0);
+        command = new RenameCommand();
+        if (pattern.equals("same")) {
+            new CommandLine(command).parseArgs("-nn", "photo", root.toString());
+        } else {
+            new CommandLine(command).parseArgs("-nn", "photo {seq}", "-s", root.toString());
+        }
+
+        paths = new ArrayList<>();
+        for (FileEntry file : FileFetcher.getAllFiles(List.of(root), false, FileType.FILE, 1)) {
+            paths.add(file.path());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        SyntheticTree.delete(root);
+    }
+
+    @Benchmark
+    public RenamePlan plan() throws IOException {
+        List<String> newNames = new ArrayList<>(paths.size());
+        int sequenceNumber = 1;
+        for (Path path : paths) {
+            newNames.add(command.giveNewName(path, sequenceNumber++));
+        }
+        return RenamePlan.build(paths, newNames);
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+
+// throwaway trees of a given shape in the temp folder, the same tree for the same arguments
+final class SyntheticTree {
+
+    private static final String[] EXTENSIONS = {"jpg", "pdf", "txt", "log", "mp4"};
+
+    enum Shape {
+        // every file in one folder
+        WIDE,
+        // a chain of 100 nested folders, the files spread over all levels
+        DEEP,
+        // 100 small files (1-8 KB) per folder, ten folders per parent
+        SMALL_FILES,
+        // a handful of files of hugeFileMB each
+        HUGE_FILES
+    }
+
+    private SyntheticTree() {
+    }
+
+    static Path create(Shape shape, int files, int hugeFileMB) throws IOException {
+        Path root = Files.createTempDirectory("ordo-bench-" + shape.name().toLowerCase() + "-");
+        Random random = new Random(42);
+
+        switch (shape) {
+            case WIDE -> {
+                for (int i = 0; i < files; i++) {
+                    write(root.resolve(name(i)), 1024 + random.nextInt(7 * 1024), random);
+                }
+            }
+            case DEEP -> {
+                int depth = 100;
+                Path folder = root;
+                for (int level = 0; level < depth; level++) {
+                    folder = Files.createDirectory(folder.resolve("level" + level));
+                    for (int i = level; i < files; i += depth) {
+                        write(folder.resolve(name(i)), 1024 + random.nextInt(7 * 1024), random);
+                    }
+                }
+            }
+            case SMALL_FILES -> {
+                for (int i = 0; i < files; i++) {
+                    int folderIndex = i / 100;
+                    Path folder = root.resolve("d" + folderIndex / 100).resolve("d" + folderIndex % 100 / 10).resolve("d" + folderIndex % 10);
+                    Files.createDirectories(folder);
+                    write(folder.resolve(name(i)), 1024 + random.nextInt(7 * 1024), random);
+                }
+            }
+            case HUGE_FILES -> {
+                int count = Math.max(2, files / 1000);
+                for (int i = 0; i < count; i++) {
+                    write(root.resolve(name(i)), (long) hugeFileMB * 1024 * 1024, random);
+                }
+            }
+        }
+        return root;
+    }
+
+    static void delete(Path root) throws IOException {
+        if (root == null || !Files.exists(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) throws IOException {
+                Files.delete(file);
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path directory, IOException e) throws IOException {
+                Files.delete(directory);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static String name(int index) {
+        return "file" + index + "." + EXTENSIONS[index % EXTENSIONS.length];
+    }
+
+    // real (random) bytes, so nothing is sparse and copies cost what they would on real files
+    private static void write(Path file, long size, Random random) throws IOException {
+        byte[] block = new byte[(int) Math.min(size, 1024 * 1024)];
+        random.nextBytes(block);
+        try (OutputStream out = Files.newOutputStream(file)) {
+            for (long written = 0; written < size; written += block.length) {
+                out.write(block, 0, (int) Math.min(block.length, size - written));
+            }
+        }
+    }
+}
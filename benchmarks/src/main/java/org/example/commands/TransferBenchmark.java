@@ -0,0 +1,85 @@
+package org.example.commands;
+
+import org.example.enumeration.FileTransfer;
+import org.example.enumeration.FileType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// the copy loop of 'ordo transfer -c': every file of a tree copied into an empty folder.
+// one copy per invocation, the destination is emptied outside the measurement.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferBenchmark {
+
+    @Param({"SMALL_FILES", "HUGE_FILES"})
+    public SyntheticTree.Shape shape;
+
+    @Param({"10000"})
+    public int files;
+
+    @Param({"512"})
+    public int hugeFileMB;
+
+    @Param({"1", "4"})
+    public int jobs;
+
+    private Path source;
+    private Path destination;
+    private List<FileEntry> selection;
+
+    @Setup(Level.Trial)
+    public void create() throws IOException {
+        Quiet.start();
+        source = SyntheticTree.create(shape, files, hugeFileMB);
+        selection = FileFetcher.getAllFiles(List.of(source), true, FileType.FILE, FileWalker.defaultThreads());
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyDestination() throws IOException {
+        destination = Files.createTempDirectory("ordo-bench-destination-");
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteDestination() throws IOException {
+        SyntheticTree.delete(destination);
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        SyntheticTree.delete(source);
+        Quiet.stop();
+    }
+
+    @Benchmark
+    public int copy() throws IOException {
+        try (TransferEngine engine = new TransferEngine(destination, FileTransfer.COPY, jobs,
+                TransferEngine.defaultChunkThresholdMB() * 1024 * 1024)) {
+            for (FileEntry file : selection) {
+                engine.submit(file);
+            }
+            engine.finish();
+            return engine.succeeded();
+        }
+    }
+}
@@ -1,14 +1,29 @@
 package org.example;
 
 import org.example.commands.Ordo;
+import org.example.commands.DaemonClient;
+import org.example.commands.Stats;
+import org.example.commands.WorkingDirectory;
 import org.fusesource.jansi.AnsiConsole;
 import picocli.CommandLine;
 
 public class Main {
     public static void main(String[] args) {
 
-        int exitCode = new CommandLine(new Ordo())
+        // a running 'ordo daemon' answers without the startup cost, otherwise the command runs right here
+        Integer forwarded = DaemonClient.forward(args);
+        if (forwarded != null) {
+            System.exit(forwarded);
+        }
+
+        Ordo ordo = new Ordo();
+        // a --watch run only ends with Ctrl+C, it still gets its summary
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> Stats.report(ordo.stats()), "ordo-stats"));
+
+        int exitCode = WorkingDirectory.configure(new CommandLine(ordo))
+                .setCaseInsensitiveEnumValuesAllowed(true)
                 .execute(args);
+        Stats.report(ordo.stats());
 
         System.exit(exitCode);
     }
@@ -0,0 +1,66 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.io.Serial;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.Set;
+
+// an archive written by 'ordo archive', one entry per added file in the order they are added
+interface Archive extends AutoCloseable {
+
+    // adds the whole file under name. store skips compression (the data is compressed already).
+    // a file that cannot be opened is not added (IOException), one that fails while being read is
+    // added completed with zeros (IncompleteEntry).
+    void add(FileEntry file, String name, boolean store) throws IOException;
+
+    // writes the end of the archive and waits until everything is in the file
+    void finish() throws IOException;
+
+    // stops the compressing and writing threads, whether or not finish() got to run
+    @Override
+    void close();
+
+    // the entry is in the archive, but the bytes that could not be read are zeros
+    final class IncompleteEntry extends IOException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        IncompleteEntry(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+
+    // rw-r--r-- where the file system has no permission bits
+    static int permissions(Path path) {
+        try {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(path);
+            int mode = 0;
+            for (PosixFilePermission permission : permissions) {
+                mode |= 0400 >> permission.ordinal();
+            }
+            return mode;
+        } catch (IOException | UnsupportedOperationException e) {
+            return 0644;
+        }
+    }
+
+    // fills block with the file's bytes from position on. whatever cannot be read (the file shrank
+    // or a read failed) stays zero, the first failure is returned.
+    static IOException read(FileChannel in, long position, byte[] block, int offset, int length) {
+        ByteBuffer buffer = ByteBuffer.wrap(block, offset, length);
+        try {
+            while (buffer.hasRemaining()) {
+                if (in.read(buffer, position + buffer.position() - offset) < 0) {
+                    return new IOException("file shrank while it was archived, the rest is zeros");
+                }
+            }
+            return null;
+        } catch (IOException e) {
+            return e;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package org.example.commands;
+
+import org.example.enumeration.ArchiveFormat;
+import org.example.enumeration.FileType;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+
+import static org.example.commands.FileFetcher.*;
+
+@Command(
+        name = "archive",
+        mixinStandardHelpOptions = true,
+        description = "Pack the matching files into a zip or tar.gz, compressed on every core"
+)
+public class ArchiveCommand implements Callable<Integer> {
+
+    // formats that do not get any smaller, they are stored as they are
+    private static final List<String> COMPRESSED_EXTENSIONS = List.of(
+            "zip", "gz", "tgz", "bz2", "xz", "zst", "lz4", "7z", "rar", "jar", "apk",
+            "docx", "xlsx", "pptx", "odt", "epub",
+            "jpg", "jpeg", "png", "gif", "webp", "heic", "avif",
+            "mp3", "aac", "m4a", "ogg", "opus", "flac",
+            "mp4", "m4v", "mkv", "mov", "avi", "webm");
+
+    @Parameters(index = "0", arity = "1..*", description = "Files, folders or glob patterns to archive")
+    private List<Path> from = List.of(Path.of("."));
+
+    @Option(names = {"-o", "--output"}, required = true, description = "Archive to write, ending in .zip, .tar.gz or .tgz")
+    private Path output;
+
+    @Option(names = "--format", description = "zip or tgz (default: taken from the output name).")
+    private ArchiveFormat format;
+
+    @Option(names = "--level", description = "Compression level from 0 (none) to 9 (smallest) (default: 6).")
+    private int level = 6;
+
+    @Option(names = "--store", split = ",", description = "Extensions stored without compressing them again (default: common archive, image, audio and video formats).")
+    private List<String> store = COMPRESSED_EXTENSIONS;
+
+    @Option(names = {"-r", "--recursive"}, description = "Recursive means that any folder and subsequent subfolders will be affected.")
+    private boolean recursive;
+
+    @Option(names = {"-dc", "--datecreated"}, description = "Adding date to filter the files and folders.")
+    private LocalDate dateCreated;
+
+    @Option(names = {"-ext", "--extension"}, description = "Extension to filter out the files.")
+    private String extension;
+
+    @Option(names = {"-lsz", "--lessthansize"}, description = "Filter out files and folders having size less than the one provided.")
+    private double lessThanSize;
+
+    @Option(names = {"-gsz", "--greaterthansize"}, description = "Filter out files and folders having size greater than the one provided.")
+    private double greaterThanSize;
+
+    @Option(names = "--glob", description = "Only include entries whose name matches this glob (patterns with a '/' match the path below the given folder). Can be repeated.")
+    private List<String> globs;
+
+    @Option(names = "--exclude", description = "Skip entries matching this glob, excluded folders are not searched at all. Can be repeated.")
+    private List<String> excludes;
+
+    @Option(names = "--max-depth", description = "Do not look more than this many levels below the given folders.")
+    private int maxDepth;
+
+    @Option(names = {"-t", "--threads"}, description = "Number of threads used to walk folders recursively (default: number of CPU cores).")
+    private int threads = FileWalker.defaultThreads();
+
+    @Option(names = {"-j", "--jobs"}, description = "Number of threads compressing (default: number of CPU cores).")
+    private int jobs = Runtime.getRuntime().availableProcessors();
+
+    @Override
+    public Integer call() throws Exception {
+        archiveFiles();
+        return 0;
+    }
+
+    private void archiveFiles() throws IOException {
+        ArchiveFormat archiveFormat = format != null ? format : formatOf(output);
+        if (archiveFormat == null) {
+            System.out.println("Error: Cannot tell the format from the output name, use --format zip or --format tgz.");
+            return;
+        }
+        if (level < 0 || level > 9) {
+            System.out.println("Error: --level must be between 0 and 9.");
+            return;
+        }
+
+        Path resolvedOutput = output.toAbsolutePath().normalize();
+        if (Files.isDirectory(resolvedOutput)) {
+            System.out.println("Error: Output is a directory.");
+            return;
+        }
+        if (Files.exists(resolvedOutput)) {
+            String response = Stats.timed("archive", "confirm", () -> {
+                System.out.print("Output file already exists. Overwrite it? (y/N): ");
+                return new java.util.Scanner(System.in).nextLine().trim();
+            });
+            if (!response.equalsIgnoreCase("y")) {
+                System.out.println("Operation aborted.");
+                return;
+            }
+        }
+        Files.createDirectories(resolvedOutput.getParent());
+
+        Set<String> stored = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        stored.addAll(store);
+
+        // written next to the output and renamed once complete, an interrupted run leaves no half archive behind
+        Path part = resolvedOutput.resolveSibling("." + resolvedOutput.getFileName() + ".ordo-part");
+        long start = System.nanoTime();
+        long[] added = new long[2];     // files, bytes
+        int[] failed = new int[2];      // not added, added completed with zeros
+        boolean complete = false;
+
+        // resources close in reverse order: the archive's threads are stopped before the channel is closed
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Archive archive = archiveFormat == ArchiveFormat.ZIP
+                     ? new ZipArchive(channel, level, jobs)
+                     : new TarGzArchive(channel, level, jobs)) {
+            FileFilter filter = filter();
+
+            Stats.timed("archive", "compress", () -> {
+                // one target at a time, so every file knows the folder its name starts from
+                for (Path target : from) {
+                    Path base = nameBase(target);
+                    streamFiles(List.of(target), recursive, filter, threads, file -> {
+                        if (file.path().equals(resolvedOutput) || file.path().equals(part)) {
+                            return;
+                        }
+                        String name = entryName(base, file.path());
+                        try {
+                            archive.add(file, name, stored.contains(getExtension(file.fileName())));
+                            added[0]++;
+                            added[1] += file.size();
+                            System.out.println("Added: " + name);
+                        } catch (Archive.IncompleteEntry e) {
+                            failed[1]++;
+                            Stats.failed("archive", file.path(), e.getMessage());
+                            System.err.printf("Failed: %s (%s, added with zeros for what could not be read)%n", name, e.getMessage());
+                        } catch (IOException e) {
+                            failed[0]++;
+                            Stats.failed("archive", file.path(), e.getMessage());
+                            System.err.printf("Failed: %s (%s)%n", name, e.getMessage());
+                        }
+                    });
+                }
+                archive.finish();
+            });
+            complete = true;
+        } catch (UncheckedIOException e) {
+            // the archive itself could not be written, nothing else can be added
+            System.out.println("Error: Could not write " + resolvedOutput + " (" + e.getCause().getMessage() + ")");
+            return;
+        } catch (IOException e) {
+            System.out.println("Error: Could not write " + resolvedOutput + " (" + e.getMessage() + ")");
+            return;
+        } finally {
+            if (!complete || added[0] + failed[0] + failed[1] == 0) {
+                Files.deleteIfExists(part);
+            }
+        }
+
+        if (added[0] + failed[0] + failed[1] == 0) {
+            System.out.println("No files matched your filters.");
+            return;
+        }
+        Files.move(part, resolvedOutput, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        long size = Files.size(resolvedOutput);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%nArchived: %d succeeded, %d failed. %s → %s (%.0f%%) in %.1f s.%n",
+                added[0], failed[0] + failed[1], formatSize(added[1]), formatSize(size),
+                added[1] > 0 ? 100.0 * size / added[1] : 100.0, seconds);
+        if (failed[0] > 0) {
+            System.err.printf("Warning: %d file(s) could not be opened and are not in the archive.%n", failed[0]);
+        }
+        if (failed[1] > 0) {
+            System.err.printf("Warning: %d file(s) failed while being read, they are in the archive completed with zeros.%n", failed[1]);
+        }
+    }
+
+    private FileFilter filter() {
+        return new FileFilter(FileType.FILE, dateCreated, extension,
+                lessThanSize, greaterThanSize, globs, excludes, maxDepth);
+    }
+
+    private static ArchiveFormat formatOf(Path output) {
+        String name = output.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".zip")) {
+            return ArchiveFormat.ZIP;
+        }
+        if (name.endsWith(".tar.gz") || name.endsWith(".tgz")) {
+            return ArchiveFormat.TGZ;
+        }
+        return null;
+    }
+
+    // names in the archive start with the name of a given folder ("photos/2024/a.jpg"), like tar
+    // and zip do. single files and glob patterns ("logs/*.log") start below the folder they are in.
+    private static Path nameBase(Path target) {
+        Path resolved = target.toAbsolutePath().normalize();
+        if (Files.isDirectory(resolved)) {
+            return resolved.getParent() != null ? resolved.getParent() : resolved;
+        }
+        while (resolved.getParent() != null && !Files.isDirectory(resolved)) {
+            resolved = resolved.getParent();
+        }
+        return resolved;
+    }
+
+    private static String entryName(Path base, Path file) {
+        Path relative = file.startsWith(base) && !file.equals(base) ? base.relativize(file) : file.getFileName();
+        StringBuilder name = new StringBuilder();
+        for (Path part : relative) {
+            if (!name.isEmpty()) {
+                name.append('/');
+            }
+            name.append(part);
+        }
+        return name.toString();
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.util.List;
+
+// a command that can be a rule of 'ordo run': it picks files with its own filter options,
+// and can act on files that were selected for it by someone else's walk
+interface BatchCommand {
+
+    FileFilter filter();
+
+    boolean isRecursive();
+
+    // what the command is about to do, e.g. "move to /home/me/Docs"
+    String describe();
+
+    // acts on the given files without walking or asking for confirmation
+    void runBatch(List<FileEntry> files) throws IOException;
+}
@@ -0,0 +1,97 @@
+package org.example.commands;
+
+import org.example.enumeration.ChecksumAlgorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+// copies one big file as independent byte ranges, one worker per range.
+// every range uses its own pair of channels and positional transferTo calls into a destination
+// that is allocated up front, so the ranges never wait for each other. the data is written to a
+// hidden part file that only replaces the final name once every range made it.
+// with --verify every range is hashed on its own while it is copied and checked right after,
+// so verification stays as parallel as the copy.
+public class ChunkedCopy {
+
+    public static final long CHUNK_SIZE = 64L * 1024 * 1024;
+
+    public static void copy(Path source, long size, Path destFile, ExecutorService chunkWorkers,
+                            ChecksumAlgorithm verify) throws IOException {
+        // claim the final name first so nobody else can take it while we copy
+        Files.createFile(destFile);
+
+        // the name is ours now, and so is the part file next to it. one left behind by a copy
+        // that was killed (say, the run that --resume picks up) is simply replaced.
+        Path part = destFile.resolveSibling("." + destFile.getFileName() + ".ordo-part");
+        try {
+            Files.deleteIfExists(part);
+            try (FileChannel out = FileChannel.open(part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                if (size > 0) {
+                    out.write(ByteBuffer.allocate(1), size - 1);
+                }
+            }
+
+            List<Future<?>> ranges = new ArrayList<>();
+            for (long start = 0; start < size; start += CHUNK_SIZE) {
+                long from = start;
+                long count = Math.min(CHUNK_SIZE, size - start);
+                ranges.add(chunkWorkers.submit(() -> {
+                    copyRange(source, part, from, count, verify);
+                    return null;
+                }));
+            }
+            try {
+                for (Future<?> range : ranges) {
+                    range.get();
+                }
+            } catch (ExecutionException e) {
+                ranges.forEach(range -> range.cancel(true));
+                throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                ranges.forEach(range -> range.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while copying " + source);
+            }
+
+            // replaces the empty placeholder we created above, readers see all or nothing
+            Files.move(part, destFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(part);
+            Files.deleteIfExists(destFile);
+            throw e;
+        }
+    }
+
+    private static void copyRange(Path source, Path part, long start, long count, ChecksumAlgorithm verify) throws IOException {
+        if (verify != null) {
+            try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(part, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                VerifiedCopy.copyRange(source, in, out, start, count, verify);
+            }
+            return;
+        }
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(part, StandardOpenOption.WRITE)) {
+            out.position(start);
+            long done = 0;
+            while (done < count) {
+                long transferred = in.transferTo(start + done, count - done, out);
+                if (transferred <= 0) {
+                    throw new IOException("Source shrank while copying: " + source);
+                }
+                done += transferred;
+            }
+            Stats.copied(done);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// the --contains filter: does a file hold the given text (or a match of the given regex)?
+// small files are read into a reusable direct buffer, bigger ones are mapped a region at a time,
+// and the search stops at the first match. plain text is looked for in its utf-8 form in the
+// bytes as they are. a regex runs over the file decoded as utf-8, so multibyte characters and
+// classes like \p{L} work (bytes that are not utf-8 become U+FFFD). it is decoded in blocks of
+// whole lines of up to a megabyte and matched one line at a time, like grep.
+final class ContentMatcher {
+
+    // up to this size one read is cheaper than setting up a mapping
+    private static final int SMALL_FILE = 1024 * 1024;
+    private static final long REGION_SIZE = 64L * 1024 * 1024;
+
+    private final byte[] literal;
+    // how far the literal search may jump when the byte under the pattern's last position does not fit
+    private final int[] skip;
+    private final Pattern pattern;
+
+    private final ThreadLocal<ByteBuffer> buffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(SMALL_FILE));
+    // utf-8 never decodes to more chars than it has bytes, so a block of lines always fits
+    private final ThreadLocal<CharBuffer> chars = ThreadLocal.withInitial(() -> CharBuffer.allocate(SMALL_FILE));
+    private final ThreadLocal<CharsetDecoder> decoders = ThreadLocal.withInitial(() -> StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE));
+
+    // throws PatternSyntaxException (an IllegalArgumentException) for a regex that does not compile
+    ContentMatcher(String text, boolean regex) {
+        if (regex) {
+            this.pattern = Pattern.compile(text);
+            this.literal = null;
+            this.skip = null;
+        } else {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            this.pattern = null;
+            this.literal = bytes;
+            this.skip = new int[256];
+            Arrays.fill(skip, bytes.length);
+            for (int i = 0; i < bytes.length - 1; i++) {
+                skip[bytes[i] & 0xff] = bytes.length - 1 - i;
+            }
+        }
+    }
+
+    boolean matches(FileEntry file) throws IOException {
+        if (!file.isRegularFile()) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= SMALL_FILE) {
+                ByteBuffer buffer = buffers.get().clear();
+                while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                    // the file may have grown since the size was read, the buffer ends the search there
+                }
+                return find(buffer.flip(), buffer.limit());
+            }
+
+            long position = 0;
+            while (position < size) {
+                long length = Math.min(REGION_SIZE, size - position);
+                ByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                boolean last = position + length == size;
+                // a match may cross into the next region: the literal search leaves its last
+                // bytes for the next one, the regex its last unfinished line
+                int searched = last ? (int) length : searchedPart(region);
+                if (find(region, searched)) {
+                    return true;
+                }
+                position += literal != null && !last ? Math.max(1, searched - (literal.length - 1)) : searched;
+            }
+            return false;
+        }
+    }
+
+    private int searchedPart(ByteBuffer region) {
+        int length = region.limit();
+        if (literal != null) {
+            return length;
+        }
+        for (int i = length - 1; i > 0; i--) {
+            if (region.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        // a line longer than a region is cut
+        return length;
+    }
+
+    private boolean find(ByteBuffer data, int limit) {
+        if (pattern != null) {
+            return findPattern(data, limit);
+        }
+        int n = literal.length;
+        if (n == 0) {
+            return true;
+        }
+        byte lastByte = literal[n - 1];
+        int i = 0;
+        while (i <= limit - n) {
+            byte current = data.get(i + n - 1);
+            if (current == lastByte) {
+                int j = n - 2;
+                while (j >= 0 && data.get(i + j) == literal[j]) {
+                    j--;
+                }
+                if (j < 0) {
+                    return true;
+                }
+            }
+            i += skip[current & 0xff];
+        }
+        return false;
+    }
+
+    // decodes whole lines into the reusable char buffer, a megabyte at most, and searches each block
+    private boolean findPattern(ByteBuffer data, int limit) {
+        CharBuffer decoded = chars.get();
+        CharsetDecoder decoder = decoders.get();
+        int start = 0;
+        while (start < limit) {
+            int end = Math.min(limit, start + SMALL_FILE);
+            if (end < limit) {
+                end = lineEnd(data, start, end);
+            }
+            decoder.reset();
+            decoder.decode(data.slice(start, end - start), decoded.clear(), true);
+            decoder.flush(decoded);
+            if (findInLines(decoded.flip())) {
+                return true;
+            }
+            start = end;
+        }
+        return false;
+    }
+
+    // the matcher only sees one line at a time (without its line break), so \s or [^x] cannot
+    // reach into the next one, and ^ and $ are the start and end of the line
+    private boolean findInLines(CharBuffer block) {
+        Matcher matcher = pattern.matcher(block);
+        int length = block.length();
+        int lineStart = 0;
+        // text after the last line break is a line too, the nothing after a final line break is not
+        for (int i = 0; i <= length; i++) {
+            if (i == length ? lineStart < length : block.get(i) == '\n') {
+                if (matcher.region(lineStart, i).find()) {
+                    return true;
+                }
+                lineStart = i + 1;
+            }
+        }
+        return false;
+    }
+
+    // just past the last line break before end, a line longer than a block is cut
+    private static int lineEnd(ByteBuffer data, int start, int end) {
+        for (int i = end - 1; i > start; i--) {
+            if (data.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+}
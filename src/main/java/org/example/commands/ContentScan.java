@@ -0,0 +1,92 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+// puts a --contains check between a walk and whatever handles its files. files that passed the
+// cheaper filters are searched on a pool of threads, and the matches are handed on in the order
+// the walk found them, from the thread feeding the scan. only a window of files is searched
+// ahead of that order, so a single huge file cannot pile up the rest in memory.
+final class ContentScan implements Consumer<FileEntry>, AutoCloseable {
+
+    private record Pending(FileEntry file, Future<Boolean> matched) {
+    }
+
+    private final ContentMatcher matcher;
+    private final Consumer<FileEntry> downstream;
+    private final ExecutorService scanners;
+    private final ArrayDeque<Pending> window = new ArrayDeque<>();
+    private final int windowSize;
+
+    ContentScan(ContentMatcher matcher, int threads, Consumer<FileEntry> downstream) {
+        int workerCount = Math.max(1, threads);
+        this.matcher = matcher;
+        this.downstream = downstream;
+        this.windowSize = workerCount * 16;
+        this.scanners = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "ordo-contains");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // the files of a list that match, in their order
+    static List<FileEntry> matching(ContentMatcher matcher, int threads, List<FileEntry> files) {
+        List<FileEntry> matched = new ArrayList<>();
+        try (ContentScan scan = new ContentScan(matcher, threads, matched::add)) {
+            files.forEach(scan);
+            scan.finish();
+        }
+        return matched;
+    }
+
+    @Override
+    public void accept(FileEntry file) {
+        window.add(new Pending(file, scanners.submit(() -> matcher.matches(file))));
+        // hand on what is done at the front, and wait for it once the window is full
+        while (!window.isEmpty() && (window.size() >= windowSize || window.peek().matched().isDone())) {
+            handOn(window.poll());
+        }
+    }
+
+    // waits for the files still being searched
+    void finish() {
+        while (!window.isEmpty()) {
+            handOn(window.poll());
+        }
+    }
+
+    @Override
+    public void close() {
+        scanners.shutdownNow();
+    }
+
+    private void handOn(Pending pending) {
+        if (matched(pending)) {
+            downstream.accept(pending.file());
+        }
+    }
+
+    // a file that cannot be read does not match, the others are still searched
+    private static boolean matched(Pending pending) {
+        try {
+            return pending.matched().get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            String message = cause instanceof IOException ? cause.getMessage() : cause.toString();
+            Stats.failed("read", pending.file().path(), message);
+            System.err.println("Warning: Could not search " + pending.file().path() + " (" + message + ")");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
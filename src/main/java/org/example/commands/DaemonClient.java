@@ -0,0 +1,131 @@
+package org.example.commands;
+
+import picocli.CommandLine;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// the thin side of 'ordo daemon': hands argv, the working directory and stdin to a running daemon
+// and copies its output back, so a call costs a socket round trip instead of a JVM start.
+public final class DaemonClient {
+
+    private DaemonClient() {
+    }
+
+    // runs the command in the daemon and returns its exit code, or null when it should run in
+    // this process: no daemon is running, it is another version, or the command is not one to forward.
+    // ORDO_DAEMON=off skips the daemon altogether.
+    public static Integer forward(String[] args) {
+        if (!forwardable(args)) {
+            return null;
+        }
+        Path socket = DaemonProtocol.socketPath();
+        if (!Files.exists(socket)) {
+            return null;
+        }
+
+        SocketChannel channel;
+        try {
+            channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+            channel.connect(UnixDomainSocketAddress.of(socket));
+        } catch (IOException e) {
+            return null;  // a socket left behind by a daemon that is gone
+        }
+
+        try (channel) {
+            DaemonProtocol.Request request = new DaemonProtocol.Request(
+                    args, Path.of("").toAbsolutePath(), CommandLine.Help.Ansi.AUTO.enabled());
+            DaemonProtocol.write(channel, DaemonProtocol.RUN, DaemonProtocol.encode(request));
+            return relay(channel, true);
+        } catch (IOException e) {
+            System.err.println("Error: Lost the connection to the ordo daemon (" + e.getMessage() + ")");
+            return 1;
+        }
+    }
+
+    // sends STATUS or STOP and prints the answer, null when no daemon is running
+    static Integer control(byte type) {
+        Path socket = DaemonProtocol.socketPath();
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(socket));
+            DaemonProtocol.write(channel, type, new byte[0]);
+            return relay(channel, false);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // whether a daemon answers on the socket
+    static boolean running() {
+        try (SocketChannel channel = SocketChannel.open(StandardProtocolFamily.UNIX)) {
+            channel.connect(UnixDomainSocketAddress.of(DaemonProtocol.socketPath()));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // --watch runs until Ctrl+C and would keep the daemon from serving anybody else meanwhile
+    private static boolean forwardable(String[] args) {
+        if (args.length == 0 || args[0].equals("daemon") || "off".equalsIgnoreCase(System.getenv("ORDO_DAEMON"))) {
+            return false;
+        }
+        return !Arrays.asList(args).contains("--watch");
+    }
+
+    private static Integer relay(SocketChannel channel, boolean sendInput) throws IOException {
+        // straight to the file descriptors, the bytes are already encoded
+        FileOutputStream out = new FileOutputStream(FileDescriptor.out);
+        FileOutputStream err = new FileOutputStream(FileDescriptor.err);
+        while (true) {
+            DaemonProtocol.Frame frame = DaemonProtocol.read(channel);
+            if (frame == null) {
+                System.err.println("Error: The ordo daemon closed the connection before the command finished.");
+                return 1;
+            }
+            switch (frame.type()) {
+                case DaemonProtocol.STDOUT -> out.write(frame.payload());
+                case DaemonProtocol.STDERR -> err.write(frame.payload());
+                case DaemonProtocol.EXIT -> {
+                    return DaemonProtocol.exitCode(frame);
+                }
+                // stdin is only read once the daemon takes the command, before that it still
+                // belongs to this process in case the command has to run here after all
+                case DaemonProtocol.ACCEPT -> {
+                    if (sendInput) {
+                        Thread input = new Thread(() -> pumpInput(channel), "ordo-daemon-stdin");
+                        input.setDaemon(true);
+                        input.start();
+                    }
+                }
+                case DaemonProtocol.MISMATCH -> {
+                    return null;
+                }
+                default -> throw new IOException("unexpected frame '" + (char) frame.type() + "'");
+            }
+        }
+    }
+
+    // stdin is read as it comes, the daemon only sees what was typed (or piped) so far
+    private static void pumpInput(SocketChannel channel) {
+        InputStream in = System.in;
+        byte[] buffer = new byte[8192];
+        try {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                DaemonProtocol.write(channel, DaemonProtocol.STDIN, buffer, 0, n);
+            }
+            DaemonProtocol.write(channel, DaemonProtocol.STDIN, new byte[0]);
+        } catch (IOException e) {
+            // the command finished and the connection is closed, nothing left to feed
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package org.example.commands;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+
+@Command(
+        name = "daemon",
+        mixinStandardHelpOptions = true,
+        description = "Keep a warm ordo running in the background, later calls run in it without starting a JVM"
+)
+public class DaemonCommand implements Callable<Integer> {
+
+    @Option(names = "--stop", description = "Stop the running daemon.")
+    private boolean stop;
+
+    @Option(names = "--status", description = "Show whether a daemon is running and how many commands it served.")
+    private boolean status;
+
+    private static volatile boolean serving;
+    // of the command running right now, null outside the daemon
+    private static volatile DaemonProtocol.Cancellation running;
+
+    private long served;
+    private final LocalDateTime started = LocalDateTime.now();
+
+    // true inside the daemon process, where System.out is the current client's and not fd 1
+    static boolean serving() {
+        return serving;
+    }
+
+    // for the loops of long commands (walks, purges, transfers), so they stop soon after the
+    // client of the command went away, not only at their next line of output
+    static void checkCancelled() {
+        DaemonProtocol.Cancellation cancellation = running;
+        if (cancellation != null && cancellation.cancelled()) {
+            throw new CancellationException("the client disconnected");
+        }
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        if (stop || status) {
+            Integer exitCode = DaemonClient.control(stop ? DaemonProtocol.STOP : DaemonProtocol.STATUS);
+            if (exitCode == null) {
+                System.out.println("No ordo daemon is running.");
+                return stop ? 0 : 1;
+            }
+            return exitCode;
+        }
+        return serve();
+    }
+
+    // one command at a time: commands print through System.out and read System.in, which are
+    // process-wide, so they are pointed at the current client for as long as its command runs.
+    // the command objects, the picocli model and the metadata indexes stay loaded between commands.
+    private int serve() throws IOException {
+        Path socket = DaemonProtocol.socketPath();
+        createPrivateFolder(socket.getParent());
+        if (Files.exists(socket)) {
+            if (DaemonClient.running()) {
+                System.err.println("Error: An ordo daemon is already running on " + socket);
+                return 1;
+            }
+            Files.delete(socket);  // left behind by a daemon that did not shut down cleanly
+        }
+
+        Ordo ordo = new Ordo();
+        CommandLine commandLine = WorkingDirectory.configure(new CommandLine(ordo))
+                .setCaseInsensitiveEnumValuesAllowed(true);
+        MetadataIndex.keepResident();
+
+        try (ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX)) {
+            server.bind(UnixDomainSocketAddress.of(socket));
+            try {
+                Files.setPosixFilePermissions(socket, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // not a posix file system, the folder permissions are all we have
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    Files.deleteIfExists(socket);
+                } catch (IOException e) {
+                    // the next daemon removes it
+                }
+            }, "ordo-daemon-cleanup"));
+
+            serving = true;
+            System.out.println("Ordo daemon listening on " + socket + " (pid " + ProcessHandle.current().pid() + ").");
+            System.out.println("Stop it with 'ordo daemon --stop', set ORDO_DAEMON=off to bypass it.");
+
+            boolean running = true;
+            while (running) {
+                try (SocketChannel client = server.accept()) {
+                    running = handle(client, ordo, commandLine);
+                } catch (IOException e) {
+                    System.err.println("Warning: Client connection failed (" + e.getMessage() + ")");
+                }
+            }
+        } finally {
+            serving = false;
+            Files.deleteIfExists(socket);
+        }
+        System.out.println("Ordo daemon stopped.");
+        return 0;
+    }
+
+    // only this user may run commands through the daemon. the socket is bound inside a folder that
+    // other users cannot enter yet, setting its own permissions after the bind would leave a moment
+    // in which anybody could connect.
+    private static void createPrivateFolder(Path folder) throws IOException {
+        Set<PosixFilePermission> ownerOnly = PosixFilePermissions.fromString("rwx------");
+        try {
+            Files.createDirectories(folder, PosixFilePermissions.asFileAttribute(ownerOnly));
+            Files.setPosixFilePermissions(folder, ownerOnly);  // it may be older than the daemon
+        } catch (UnsupportedOperationException e) {
+            Files.createDirectories(folder);
+        }
+    }
+
+    // serves one connection, returns false when the daemon was asked to stop
+    private boolean handle(SocketChannel client, Ordo ordo, CommandLine commandLine) throws IOException {
+        DaemonProtocol.Frame frame = DaemonProtocol.read(client);
+        if (frame == null) {
+            return true;  // a liveness check, connected and left
+        }
+        switch (frame.type()) {
+            case DaemonProtocol.STATUS -> {
+                String text = String.format("Ordo daemon running on %s (pid %d) since %s, %d command(s) served.%n",
+                        DaemonProtocol.socketPath(), ProcessHandle.current().pid(),
+                        started.format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")), served);
+                DaemonProtocol.write(client, DaemonProtocol.STDOUT, text.getBytes(StandardCharsets.UTF_8));
+                DaemonProtocol.writeExit(client, 0);
+                return true;
+            }
+            case DaemonProtocol.STOP -> {
+                DaemonProtocol.write(client, DaemonProtocol.STDOUT, "Ordo daemon stopped.\n".getBytes(StandardCharsets.UTF_8));
+                DaemonProtocol.writeExit(client, 0);
+                return false;
+            }
+            case DaemonProtocol.RUN -> {
+                DaemonProtocol.Request request = DaemonProtocol.decode(frame.payload());
+                if (request == null) {
+                    DaemonProtocol.write(client, DaemonProtocol.MISMATCH, new byte[0]);
+                    return true;
+                }
+                DaemonProtocol.write(client, DaemonProtocol.ACCEPT, new byte[0]);
+                DaemonProtocol.Cancellation cancellation = new DaemonProtocol.Cancellation(Thread.currentThread());
+                int exitCode = run(client, request, ordo, commandLine, cancellation);
+                served++;
+                if (cancellation.cancelled()) {
+                    System.err.println("Warning: The client disconnected, 'ordo " + String.join(" ", request.args()) + "' was stopped.");
+                    return true;
+                }
+                DaemonProtocol.writeExit(client, exitCode);
+                return true;
+            }
+            default -> throw new IOException("unexpected frame '" + (char) frame.type() + "'");
+        }
+    }
+
+    private int run(SocketChannel client, DaemonProtocol.Request request, Ordo ordo, CommandLine commandLine,
+                    DaemonProtocol.Cancellation cancellation) throws IOException {
+        PrintStream out = new PrintStream(new DaemonProtocol.FrameOutputStream(client, DaemonProtocol.STDOUT, cancellation), true, StandardCharsets.UTF_8);
+        PrintStream err = new PrintStream(new DaemonProtocol.FrameOutputStream(client, DaemonProtocol.STDERR, cancellation), true, StandardCharsets.UTF_8);
+        DaemonProtocol.FrameInputStream in = new DaemonProtocol.FrameInputStream(() -> {
+            out.flush();
+            err.flush();
+        });
+
+        // the client's stdin arrives while the command runs. after the end of its input the client
+        // sends nothing more, so the connection ending before the command did means it is gone.
+        Thread input = new Thread(() -> {
+            try {
+                DaemonProtocol.Frame frame;
+                while ((frame = DaemonProtocol.read(client)) != null && frame.type() == DaemonProtocol.STDIN) {
+                    in.offer(frame.payload());
+                }
+                if (frame == null) {
+                    cancellation.cancel();
+                }
+            } catch (IOException e) {
+                // also how the connection is closed once the command is done, cancel() knows the difference
+                cancellation.cancel();
+            } finally {
+                in.end();
+            }
+        }, "ordo-daemon-stdin");
+        input.setDaemon(true);
+        input.start();
+
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        InputStream originalIn = System.in;
+        System.setOut(out);
+        System.setErr(err);
+        System.setIn(in);
+        WorkingDirectory.set(request.workingDirectory());
+        Stats.reset();
+        running = cancellation;
+        try {
+            // picocli's default strategy remembers the System.out of when it was created and would put
+            // help and version text back on it, a fresh one is made while the client's streams are set
+            commandLine.setExecutionStrategy(new CommandLine.RunLast());
+            commandLine.setOut(new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), true));
+            commandLine.setErr(new PrintWriter(new OutputStreamWriter(err, StandardCharsets.UTF_8), true));
+            commandLine.setColorScheme(CommandLine.Help.defaultColorScheme(
+                    request.ansi() ? CommandLine.Help.Ansi.ON : CommandLine.Help.Ansi.OFF));
+            int exitCode = commandLine.execute(request.args());
+            Stats.report(ordo.stats());
+            return exitCode;
+        } catch (CancellationException e) {
+            return 130;
+        } finally {
+            try {
+                out.flush();
+                err.flush();
+            } catch (CancellationException e) {
+                // nobody left to flush to
+            }
+            cancellation.finish();
+            running = null;
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+            System.setIn(originalIn);
+            WorkingDirectory.set(null);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package org.example.commands;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+// what 'ordo' and 'ordo daemon' say to each other over the unix domain socket.
+// everything is a frame: one type byte, the payload length as an int, the payload.
+// the client sends RUN (or STATUS / STOP). the daemon answers a RUN with ACCEPT, or MISMATCH when it
+// cannot run it, and only after ACCEPT does the client send STDIN frames (an empty one at end of
+// input), so a command that falls back to running in the client still has all of its stdin.
+// the daemon then sends STDOUT and STDERR frames and finally EXIT.
+final class DaemonProtocol {
+
+    // bumped whenever the frames change, a daemon from another version answers MISMATCH
+    static final int VERSION = 2;
+
+    static final byte RUN = 'R';
+    static final byte STATUS = 'S';
+    static final byte STOP = 'Q';
+    static final byte STDIN = 'I';
+    static final byte STDOUT = 'O';
+    static final byte STDERR = 'E';
+    static final byte EXIT = 'X';
+    static final byte MISMATCH = 'V';
+    static final byte ACCEPT = 'A';
+
+    private static final int MAX_FRAME = 64 << 20;
+
+    private DaemonProtocol() {
+    }
+
+    static Path socketPath() {
+        return Path.of(System.getProperty("user.home"), ".ordo", "daemon.sock");
+    }
+
+    record Frame(byte type, byte[] payload) {
+    }
+
+    // what the client wants run: its argv, the folder it was started in and whether its terminal takes colors
+    record Request(String[] args, Path workingDirectory, boolean ansi) {
+    }
+
+    static void write(SocketChannel channel, byte type, byte[] payload, int offset, int length) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(5).put(type).putInt(length).flip();
+        ByteBuffer body = ByteBuffer.wrap(payload, offset, length);
+        // STDOUT and STDERR are written from whatever threads the command prints on
+        synchronized (channel) {
+            while (header.hasRemaining() || body.hasRemaining()) {
+                channel.write(new ByteBuffer[]{header, body});
+            }
+        }
+    }
+
+    static void write(SocketChannel channel, byte type, byte[] payload) throws IOException {
+        write(channel, type, payload, 0, payload.length);
+    }
+
+    static void writeExit(SocketChannel channel, int code) throws IOException {
+        write(channel, EXIT, ByteBuffer.allocate(4).putInt(code).array());
+    }
+
+    static int exitCode(Frame frame) {
+        return ByteBuffer.wrap(frame.payload()).getInt();
+    }
+
+    // the next frame, or null when the other side closed the connection between frames
+    static Frame read(SocketChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(5);
+        if (!readFully(channel, header, true)) {
+            return null;
+        }
+        header.flip();
+        byte type = header.get();
+        int length = header.getInt();
+        if (length < 0 || length > MAX_FRAME) {
+            throw new IOException("broken frame (" + length + " bytes)");
+        }
+        ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(channel, payload, false);
+        return new Frame(type, payload.array());
+    }
+
+    private static boolean readFully(SocketChannel channel, ByteBuffer buffer, boolean endAllowed) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                if (endAllowed && buffer.position() == 0) {
+                    return false;
+                }
+                throw new EOFException("connection closed in the middle of a frame");
+            }
+        }
+        return true;
+    }
+
+    static byte[] encode(Request request) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(VERSION);
+        out.writeBoolean(request.ansi());
+        writeString(out, request.workingDirectory().toString());
+        out.writeInt(request.args().length);
+        for (String arg : request.args()) {
+            writeString(out, arg);
+        }
+        return bytes.toByteArray();
+    }
+
+    // null when the request comes from a client of another version
+    static Request decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        if (in.readInt() != VERSION) {
+            return null;
+        }
+        boolean ansi = in.readBoolean();
+        Path workingDirectory = Path.of(readString(in));
+        String[] args = new String[in.readInt()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = readString(in);
+        }
+        return new Request(args, workingDirectory, ansi);
+    }
+
+    // writeUTF stops at 64 KB, an argument list from xargs can be longer
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // stops the command a daemon runs once its client is gone (Ctrl+C, a closed terminal): nobody
+    // reads its output any more, and every other client waits behind it. the command thread is
+    // interrupted, and all of its output from then on throws, which PrintStream passes on.
+    static final class Cancellation {
+        private final Thread command;
+        private volatile boolean cancelled;
+        private boolean finished;
+
+        Cancellation(Thread command) {
+            this.command = command;
+        }
+
+        synchronized void cancel() {
+            if (!finished && !cancelled) {
+                cancelled = true;
+                command.interrupt();
+            }
+        }
+
+        boolean cancelled() {
+            return cancelled;
+        }
+
+        // called on the command thread once the command returned, an interrupt meant for it must not hit the next one
+        synchronized void finish() {
+            finished = true;
+            Thread.interrupted();
+        }
+    }
+
+    // System.out / System.err of a command running in the daemon: bytes go to the client as frames
+    static class FrameOutputStream extends OutputStream {
+        private final SocketChannel channel;
+        private final byte type;
+        private final Cancellation cancellation;
+        private final byte[] buffer = new byte[8192];
+        private int count;
+
+        FrameOutputStream(SocketChannel channel, byte type, Cancellation cancellation) {
+            this.channel = channel;
+            this.type = type;
+            this.cancellation = cancellation;
+        }
+
+        @Override
+        public synchronized void write(int b) throws IOException {
+            if (count == buffer.length) {
+                flush();
+            }
+            buffer[count++] = (byte) b;
+        }
+
+        @Override
+        public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length > buffer.length - count) {
+                flush();
+            }
+            if (length >= buffer.length) {
+                // big writes (list --format) go out as they are
+                send(bytes, offset, length);
+                return;
+            }
+            System.arraycopy(bytes, offset, buffer, count, length);
+            count += length;
+        }
+
+        @Override
+        public synchronized void flush() throws IOException {
+            if (count > 0) {
+                send(buffer, 0, count);
+                count = 0;
+            }
+        }
+
+        // PrintStream would only note an IOException in checkError() and let the command go on
+        private void send(byte[] bytes, int offset, int length) {
+            if (cancellation.cancelled()) {
+                throw new CancellationException("the client disconnected");
+            }
+            try {
+                DaemonProtocol.write(channel, type, bytes, offset, length);
+            } catch (IOException e) {
+                cancellation.cancel();
+                throw new CancellationException("the client disconnected");
+            }
+        }
+    }
+
+    // System.in of a command running in the daemon, filled with the client's STDIN frames.
+    // like a terminal, reading first flushes what was printed, so a "Continue? (y/N): " prompt is
+    // on the client's screen before the command waits for the answer.
+    static class FrameInputStream extends InputStream {
+        private static final byte[] END = new byte[0];
+
+        private final BlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+        private final Runnable beforeWaiting;
+        private byte[] current;
+        private int position;
+        private boolean ended;
+
+        FrameInputStream(Runnable beforeWaiting) {
+            this.beforeWaiting = beforeWaiting;
+        }
+
+        void offer(byte[] chunk) {
+            chunks.add(chunk.length == 0 ? END : chunk);
+        }
+
+        void end() {
+            chunks.add(END);
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public synchronized int read(byte[] bytes, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (current == null || position == current.length) {
+                if (ended) {
+                    return -1;
+                }
+                byte[] next = chunks.poll();
+                if (next == null) {
+                    beforeWaiting.run();
+                    try {
+                        next = chunks.take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("interrupted while waiting for input");
+                    }
+                }
+                if (next == END) {
+                    ended = true;
+                    return -1;
+                }
+                current = next;
+                position = 0;
+            }
+            int n = Math.min(length, current.length - position);
+            System.arraycopy(current, position, bytes, offset, n);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public synchronized int available() {
+            return current == null ? 0 : current.length - position;
+        }
+    }
+}
@@ -9,16 +9,21 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.regex.PatternSyntaxException;
 
 @Command(
         name = "delete",
         mixinStandardHelpOptions = true,
         description = "Delete files matching filters (safe by default, moves to trash if possible)"
 )
-public class DeleteCommand implements Callable<Integer> {@Parameters(index = "0", arity = "0..*", description = "Folder path(s) or file globs (default: current directory)")
+public class DeleteCommand implements Callable<Integer>, BatchCommand {@Parameters(index = "0", arity = "0..*", description = "Folder path(s) or file globs (default: current directory)")
     private List<Path> targets = List.of(Path.of("."));
 
     @Option(names = {"-r", "--recursive"}, description = "Search for files and folders recursively inside directories")
@@ -45,6 +50,27 @@ public class DeleteCommand implements Callable<Integer> {@Parameters(index = "0"
     @Option(names = {"-df", "--deletefolders"}, description = "Delete folders as well")
     private boolean deleteFolders;
 
+    @Option(names = "--glob", description = "Only include entries whose name matches this glob (patterns with a '/' match the path below the given folder). Can be repeated.")
+    private List<String> globs;
+
+    @Option(names = "--exclude", description = "Skip entries matching this glob, excluded folders are not searched at all. Can be repeated.")
+    private List<String> excludes;
+
+    @Option(names = "--max-depth", description = "Do not look more than this many levels below the given folders.")
+    private int maxDepth;
+
+    @Option(names = "--contains", description = "Only include files containing this text. Searched after the other filters, in parallel (-t threads), up to the first match.")
+    private String contains;
+
+    @Option(names = "--regex", description = "Treat --contains as a regular expression, matched within a line.")
+    private boolean regex;
+
+    @Option(names = {"-t", "--threads"}, description = "Number of threads used to walk folders recursively (default: number of CPU cores).")
+    private int threads = FileWalker.defaultThreads();
+
+    @Option(names = "--watch", description = "Keep running and delete new or modified files matching the filters as they appear (asks once).")
+    private boolean watch;
+
     @Override
     public Integer call() throws Exception {
         deleteFilesAndFolders();
@@ -53,7 +79,21 @@ public class DeleteCommand implements Callable<Integer> {@Parameters(index = "0"
 
     private void deleteFilesAndFolders() throws IOException {
         boolean hasFilters = dateCreated != null || extension != null
-                || lessThanSize > 0 || greaterThanSize > 0;
+                || lessThanSize > 0 || greaterThanSize > 0
+                || globs != null || excludes != null || contains != null;
+
+        if (watch && !hasFilters) {
+            System.err.println("Error: --watch needs at least one filter, it would delete everything that appears.");
+            return;
+        }
+
+        ContentMatcher content;
+        try {
+            content = contains != null ? new ContentMatcher(contains, regex) : null;
+        } catch (PatternSyntaxException e) {
+            System.err.println("Error: Invalid --contains pattern: " + e.getDescription());
+            return;
+        }
 
         System.out.println("Targets: " + targets);
         System.out.println("Has filters: " + hasFilters);
@@ -62,25 +102,15 @@ public class DeleteCommand implements Callable<Integer> {@Parameters(index = "0"
         System.out.println("Permanent: " + permanent);
 
         // ── 1. Collect items to delete ──────────────────────────────────────
-        List<Path> itemsToDelete;
-        if (hasFilters) {
-            // Filtered search → only files (folders are never filtered/deleted this way)
-            itemsToDelete = FileFetcher.getFiles(targets, recursive, dateCreated,
-                    extension, lessThanSize, greaterThanSize, FileType.FILE);
-            System.out.println("Found " + itemsToDelete.size() + " matching files");
-        } else {
-            // No filters → delete everything (files + folders if allowed)
-            itemsToDelete = FileFetcher.getAllFiles(targets, recursive, FileType.BOTH);
-            System.out.println("Found " + itemsToDelete.size() + " total items (files + folders)");
-        }
+        List<FileEntry> itemsToDelete = Stats.timed("delete", "collect", () -> collect(hasFilters, content));
 
-        if (itemsToDelete.isEmpty()) {
+        if (itemsToDelete.isEmpty() && !watch) {
             System.out.println("Nothing to delete.");
             return;
         }
 
         // ── 2. Safety check: folders without -df ────────────────────────────
-        boolean hasFolders = itemsToDelete.stream().anyMatch(Files::isDirectory);
+        boolean hasFolders = itemsToDelete.stream().anyMatch(FileEntry::isDirectory);
         if (hasFolders && !deleteFolders && !hasFilters) {
             System.err.println("Error: Found folders but -df/--deletefolders not used.");
             System.err.println("Use -df if you really want to delete folders.");
@@ -88,48 +118,113 @@ public class DeleteCommand implements Callable<Integer> {@Parameters(index = "0"
         }
 
         // ── 3. Confirmation (always ask — very important!) ──────────────────
-        long fileCount = itemsToDelete.stream().filter(Files::isRegularFile).count();
+        long fileCount = itemsToDelete.stream().filter(FileEntry::isRegularFile).count();
         long folderCount = itemsToDelete.size() - fileCount;
 
         System.out.printf("About to %s %d file(s) and %d folder(s).%n",
                 permanent ? "PERMANENTLY delete" : "move to trash", fileCount, folderCount);
+        if (watch) {
+            System.out.println("After that, every new or modified file matching the filters is handled the same way until stopped, without asking again.");
+        }
 
-        Scanner sc = new Scanner(System.in);
-        System.out.print("Continue? (y/N): ");
-        if (!sc.nextLine().trim().equalsIgnoreCase("y")) {
+        boolean confirmed = Stats.timed("delete", "confirm", () -> {
+            Scanner sc = new Scanner(System.in);
+            System.out.print("Continue? (y/N): ");
+            return sc.nextLine().trim().equalsIgnoreCase("y");
+        });
+        if (!confirmed) {
             System.out.println("Aborted.");
             return;
         }
 
-        // ── 4. Actual deletion ──────────────────────────────────────────────
-        int filesOk = 0, filesFail = 0;
-        int foldersOk = 0, foldersFail = 0;
+        if (!itemsToDelete.isEmpty()) {
+            deleteItems(itemsToDelete);
+        }
 
-        for (Path path : itemsToDelete) {
-            boolean isDir = Files.isDirectory(path);
+        if (watch) {
+            try (DirectoryWatcher watcher = new DirectoryWatcher(targets, recursive, filter())) {
+                System.out.println("\nWatching for new files, press Ctrl+C to stop...");
+                watcher.watch(batch -> deleteItems(content != null ? ContentScan.matching(content, threads, batch) : batch));
+            }
+        }
+    }
 
-            if (isDir && !deleteFolders) continue;  // skip folders unless explicitly allowed
+    @Override
+    public FileFilter filter() {
+        return new FileFilter(FileType.FILE, dateCreated, extension,
+                lessThanSize, greaterThanSize, globs, excludes, maxDepth);
+    }
 
-            try {
-                if (permanent) {
-                    Files.delete(path);  // throws if directory not empty → use deleteRecursively if needed
-                } else {
-                    moveToTrash(path);
-                }
+    @Override
+    public boolean isRecursive() {
+        return recursive;
+    }
 
-                if (isDir) {
-                    foldersOk++;
-                    System.out.println((permanent ? "Deleted" : "Trashed") + " folder: " + path);
-                } else {
-                    filesOk++;
-                    System.out.println((permanent ? "Deleted" : "Trashed") + " file:   " + path);
-                }
+    @Override
+    public String describe() {
+        return permanent ? "delete permanently" : "move to trash";
+    }
 
-            } catch (Exception e) {
-                if (isDir) foldersFail++;
-                else filesFail++;
-                System.err.println("Failed to " + (permanent ? "delete" : "trash") + ": " + path);
-                System.err.println("  → " + e.getMessage());
+    @Override
+    public void runBatch(List<FileEntry> files) {
+        if (contains != null) {
+            // the rule would get files before their contents were searched
+            System.err.println("Error: --contains cannot be used in a rules file, run 'ordo delete --contains' on its own.");
+            return;
+        }
+        deleteItems(files);
+    }
+
+    private void deleteItems(List<FileEntry> itemsToDelete) {
+        Stats.timed("delete", "execute", () -> deleteSelected(itemsToDelete));
+    }
+
+    private void deleteSelected(List<FileEntry> itemsToDelete) {
+        // ── 4. Actual deletion ──────────────────────────────────────────────
+        long filesOk = 0, filesFail = 0;
+        long foldersOk = 0, foldersFail = 0;
+
+        // a folder takes everything below it along, so nested items are not handled twice.
+        // what already sits in a trash folder stays there (watching ~ would otherwise trash it again and again).
+        List<FileEntry> topLevel = topLevelItems(itemsToDelete);
+        topLevel.removeIf(item -> TrashStore.isTrashed(item.path()));
+
+        if (permanent) {
+            // leaves first, sibling folders in parallel. works on non-empty folders too.
+            PurgeEngine engine = new PurgeEngine(threads);
+            engine.purge(topLevel);
+            filesOk = engine.filesDeleted();
+            filesFail = engine.filesFailed();
+            foldersOk = engine.foldersDeleted();
+            foldersFail = engine.foldersFailed();
+        } else {
+            // one rename per item into the trash of its own volume, recorded in the trash manifest
+            try (TrashStore trash = new TrashStore()) {
+                for (FileEntry item : topLevel) {
+                    Path path = item.path();
+                    boolean isDir = item.isDirectory();
+
+                    try {
+                        trash.moveToTrash(item);
+
+                        if (isDir) {
+                            foldersOk++;
+                            System.out.println("Trashed folder: " + path);
+                        } else {
+                            filesOk++;
+                            System.out.println("Trashed file:   " + path);
+                        }
+
+                    } catch (Exception e) {
+                        if (isDir) foldersFail++;
+                        else filesFail++;
+                        Stats.failed("trash", path, e.getMessage());
+                        System.err.println("Failed to trash: " + path);
+                        System.err.println("  → " + e.getMessage());
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Warning: Could not update the trash manifest (" + e.getMessage() + ")");
             }
         }
 
@@ -141,21 +236,93 @@ public class DeleteCommand implements Callable<Integer> {@Parameters(index = "0"
 
     }
 
-    private void moveToTrash(Path path) throws IOException {
-        Path trashDir = Path.of(System.getProperty("user.home"), ".ordo-trash");
-        Files.createDirectories(trashDir);
+    private List<FileEntry> collect(boolean hasFilters, ContentMatcher content) throws IOException {
+        List<FileEntry> itemsToDelete;
+        if (hasFilters) {
+            // Filtered search → only files (folders are never filtered/deleted this way)
+            itemsToDelete = FileFetcher.getFiles(targets, recursive, filter(), threads);
+            if (content != null) {
+                itemsToDelete = ContentScan.matching(content, threads, itemsToDelete);
+            }
+            System.out.println("Found " + itemsToDelete.size() + " matching files");
+        } else {
+            // No filters → delete everything (files + folders if allowed)
+            itemsToDelete = FileFetcher.getFiles(targets, recursive, new FileFilter(FileType.BOTH, null,
+                    null, 0, 0, null, null, maxDepth), threads);
+            itemsToDelete = withoutPartialFolders(withoutTargetFolders(itemsToDelete));
+            System.out.println("Found " + itemsToDelete.size() + " total items (files + folders)");
+        }
+        return itemsToDelete;
+    }
 
-        Path dest = trashDir.resolve(path.getFileName());
-        int counter = 1;
-        while (Files.exists(dest)) {
-            String name = path.getFileName().toString();
-            String base = name.contains(".") ? name.substring(0, name.lastIndexOf('.')) : name;
-            String ext  = name.contains(".") ? name.substring(name.lastIndexOf('.')) : "";
-            dest = trashDir.resolve(base + "." + counter + ext);
-            counter++;
+    // a recursive walk starts with the folder it was given, which is where the deleting happens, not what is deleted
+    private List<FileEntry> withoutTargetFolders(List<FileEntry> items) {
+        Set<Path> roots = new HashSet<>();
+        for (Path target : targets) {
+            roots.add(target.toAbsolutePath().normalize());
         }
+        List<FileEntry> selected = new ArrayList<>(items);
+        selected.removeIf(item -> item.isDirectory() && roots.contains(item.path()));
+        return selected;
+    }
 
-        Files.move(path, dest);
+    // a folder is only deleted when everything below it was selected too, deleting it must not take
+    // along what --max-depth (or a walk without -r) left out. such a folder is dropped, the selected
+    // items inside it are still deleted one by one.
+    private List<FileEntry> withoutPartialFolders(List<FileEntry> items) {
+        if (recursive && maxDepth <= 0) {
+            // the walk saw every folder's whole contents
+            return items;
+        }
+        Set<Path> selected = new HashSet<>();
+        List<FileEntry> folders = new ArrayList<>();
+        for (FileEntry item : items) {
+            selected.add(item.path());
+            if (item.isDirectory() && !Files.isSymbolicLink(item.path())) {
+                folders.add(item);
+            }
+        }
+
+        // deepest first, so a folder knows about its subfolders before it is looked at
+        folders.sort(Comparator.comparingInt((FileEntry folder) -> folder.path().getNameCount()).reversed());
+        Set<Path> partial = new HashSet<>();
+        for (FileEntry folder : folders) {
+            for (FileWalker.Child child : FileWalker.listDirectory(folder.path())) {
+                Path path = child.entry().path();
+                if (!selected.contains(path) || partial.contains(path)) {
+                    partial.add(folder.path());
+                    break;
+                }
+            }
+        }
+
+        List<FileEntry> complete = new ArrayList<>(items);
+        complete.removeIf(item -> partial.contains(item.path()));
+        return complete;
+    }
+
+    // drops folders unless -df was given, and everything that sits inside another selected folder
+    private List<FileEntry> topLevelItems(List<FileEntry> items) {
+        Set<Path> selectedFolders = new HashSet<>();
+        for (FileEntry item : items) {
+            if (item.isDirectory() && deleteFolders) {
+                selectedFolders.add(item.path());
+            }
+        }
+
+        List<FileEntry> topLevel = new ArrayList<>();
+        for (FileEntry item : items) {
+            if (item.isDirectory() && !deleteFolders) continue;  // skip folders unless explicitly allowed
+
+            boolean nested = false;
+            for (Path parent = item.path().getParent(); parent != null && !nested; parent = parent.getParent()) {
+                nested = selectedFolders.contains(parent);
+            }
+            if (!nested) {
+                topLevel.add(item);
+            }
+        }
+        return topLevel;
     }
 
 }
\ No newline at end of file
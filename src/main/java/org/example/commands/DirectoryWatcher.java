@@ -0,0 +1,234 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// watches folders for new and modified files and hands the ones that pass the filter over in batches.
+// WatchService only reports direct children, so with recursive every folder below a target is
+// registered on its own, and folders created later are registered (and scanned) as they appear.
+// events are collected until the folders have been quiet for a moment, so a burst of hundreds of
+// files ends up in one batch with every path once. a file is only handed over once its size and
+// modification time stayed the same for SETTLE_MILLIS, so one that is still being written (a
+// download, a log being appended to) is not picked up half done and then again for every change.
+// with nothing pending the thread blocks in WatchService.take() and uses no CPU.
+public class DirectoryWatcher implements AutoCloseable {
+
+    // how long the folders must stay quiet before a batch is handed over
+    private static final long QUIET_MILLIS = 300;
+    // a steady stream of events still gets flushed this often
+    private static final long MAX_DELAY_MILLIS = 1000;
+    // how long a file must stay unchanged before it is handed over
+    private static final long SETTLE_MILLIS = 3000;
+
+    private final WatchService service;
+    private final boolean recursive;
+    private final FileFilter filter;
+    // every registered folder → the target it was found under, and how deep below it
+    private final Map<WatchKey, Watched> watched = new HashMap<>();
+    private final Map<Path, Watched> byFolder = new HashMap<>();
+    // matching entries that changed lately, waiting to settle, in the order they were seen
+    private final Map<Path, Settling> settling = new LinkedHashMap<>();
+
+    private record Watched(Path root, Path folder, int depth) {
+    }
+
+    // an entry as it was last seen, and since when it looks like that
+    private record Settling(FileEntry entry, long since) {
+    }
+
+    public DirectoryWatcher(List<Path> targets, boolean recursive, FileFilter filter) throws IOException {
+        this.service = FileSystems.getDefault().newWatchService();
+        this.recursive = recursive;
+        this.filter = filter;
+
+        for (Path target : targets) {
+            Path resolved = target.toAbsolutePath().normalize();
+            FileEntry root;
+            try {
+                root = FileEntry.read(resolved);
+            } catch (NoSuchFileException e) {
+                System.err.println("Warning: Path does not exist: " + resolved);
+                continue;
+            }
+            if (root.isDirectory()) {
+                register(resolved, resolved, 0, null);
+            } else {
+                System.err.println("Warning: Only folders can be watched: " + resolved);
+            }
+        }
+    }
+
+    // blocks until the thread is interrupted or the watcher is closed
+    public void watch(Consumer<List<FileEntry>> batches) {
+        try {
+            while (!watched.isEmpty()) {
+                Set<Path> changed = new LinkedHashSet<>();
+                List<FileEntry> found = new ArrayList<>();
+
+                // while files are settling, wake up to look at them again even without events
+                WatchKey key = settling.isEmpty() ? service.take() : service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+                long deadline = System.currentTimeMillis() + MAX_DELAY_MILLIS;
+                while (key != null) {
+                    collect(key, changed, found);
+                    long wait = Math.min(QUIET_MILLIS, deadline - System.currentTimeMillis());
+                    key = wait > 0 ? service.poll(wait, TimeUnit.MILLISECONDS) : null;
+                }
+
+                for (Path path : changed) {
+                    addIfMatching(path, found);
+                }
+                long now = System.currentTimeMillis();
+                for (FileEntry entry : found) {
+                    Settling previous = settling.get(entry.path());
+                    if (previous == null || !sameVersion(previous.entry(), entry)) {
+                        settling.put(entry.path(), new Settling(entry, now));
+                    }
+                }
+
+                List<FileEntry> settled = settled(now);
+                if (!settled.isEmpty()) {
+                    batches.accept(settled);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // closed from another thread, we are done
+        }
+    }
+
+    // the entries that did not change for SETTLE_MILLIS. they are stat'ed once more, a write
+    // whose event was folded into an earlier one still shows in the size or modification time.
+    private List<FileEntry> settled(long now) {
+        List<FileEntry> settled = new ArrayList<>();
+        Iterator<Settling> pending = settling.values().iterator();
+        List<Settling> changedAgain = new ArrayList<>();
+        while (pending.hasNext()) {
+            Settling candidate = pending.next();
+            if (now - candidate.since() < SETTLE_MILLIS) {
+                continue;
+            }
+            pending.remove();
+            FileEntry current;
+            try {
+                current = FileEntry.read(candidate.entry().path());
+            } catch (IOException e) {
+                continue;  // removed again before it settled
+            }
+            if (sameVersion(candidate.entry(), current)) {
+                settled.add(current);
+            } else {
+                changedAgain.add(new Settling(current, now));
+            }
+        }
+        for (Settling candidate : changedAgain) {
+            settling.put(candidate.entry().path(), candidate);
+        }
+        return settled;
+    }
+
+    private static boolean sameVersion(FileEntry a, FileEntry b) {
+        return a.size() == b.size()
+                && a.attributes().lastModifiedTime().equals(b.attributes().lastModifiedTime());
+    }
+
+    @Override
+    public void close() throws IOException {
+        service.close();
+    }
+
+    private void collect(WatchKey key, Set<Path> changed, List<FileEntry> found) {
+        Watched folder = watched.get(key);
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (folder == null) {
+                continue;
+            }
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                // events were lost, look at the whole folder again
+                scan(folder.root, folder.folder, folder.depth, found);
+                continue;
+            }
+            changed.add(folder.folder.resolve((Path) event.context()));
+        }
+        if (!key.reset()) {
+            Watched gone = watched.remove(key);  // the folder is gone
+            if (gone != null) {
+                byFolder.remove(gone.folder);
+            }
+        }
+    }
+
+    // adds the entry behind an event when it is (still) there, passes the filter and was not pruned
+    private void addIfMatching(Path path, List<FileEntry> found) {
+        Watched folder = byFolder.get(path.getParent());
+        if (folder == null) {
+            return;
+        }
+        int depth = folder.depth + 1;
+        if (filter.excluded(folder.root, path, depth)) {
+            return;
+        }
+
+        FileEntry entry;
+        try {
+            entry = FileEntry.read(path);
+        } catch (IOException e) {
+            return;  // created and removed again before we got to it
+        }
+
+        if (filter.matches(folder.root, entry)) {
+            found.add(entry);
+        }
+        if (entry.isDirectory() && recursive && filter.canDescend(depth) && !byFolder.containsKey(path)) {
+            // a new folder: watch it too, and pick up what was put into it before that
+            register(folder.root, path, depth, found);
+        }
+    }
+
+    // registers a folder (and with recursive every folder below it). when found is given,
+    // the matching entries already inside are added to it.
+    private void register(Path root, Path folder, int depth, List<FileEntry> found) {
+        try {
+            WatchKey key = folder.register(service,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            Watched entry = new Watched(root, folder, depth);
+            watched.put(key, entry);
+            byFolder.put(folder, entry);
+        } catch (IOException e) {
+            System.err.println("Warning: Could not watch " + folder + " (" + e.getMessage() + ")");
+            return;
+        }
+
+        if (recursive || found != null) {
+            scan(root, folder, depth, found);
+        }
+    }
+
+    private void scan(Path root, Path folder, int depth, List<FileEntry> found) {
+        for (FileWalker.Child child : FileWalker.listDirectory(root, folder, depth + 1, filter)) {
+            if (found != null && child.matches()) {
+                found.add(child.entry());
+            }
+            if (recursive && child.descend() && !byFolder.containsKey(child.entry().path())) {
+                register(root, child.entry().path(), depth + 1, found);
+            }
+        }
+    }
+}
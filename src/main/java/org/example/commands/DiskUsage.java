@@ -0,0 +1,127 @@
+package org.example.commands;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// sums file sizes per folder, bottom-up, one fork/join task per folder.
+// every worker thread keeps its own bounded heaps of the largest files and folders it saw,
+// the heaps are only merged once the walk is over. nothing else is kept per entry, so memory
+// stays at the size of the heaps no matter how big the tree is.
+public class DiskUsage {
+
+    private static final Comparator<Usage> SMALLEST_FIRST = Comparator.comparingLong(Usage::bytes);
+
+    private final int top;
+    private final int threads;
+    private final Queue<Accumulator> accumulators = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Accumulator> local = ThreadLocal.withInitial(() -> {
+        Accumulator accumulator = new Accumulator();
+        accumulators.add(accumulator);
+        return accumulator;
+    });
+
+    public DiskUsage(int top, int threads) {
+        this.top = Math.max(1, top);
+        this.threads = Math.max(1, threads);
+    }
+
+    // bytes and number of the matching files below a folder (or of a single file)
+    public record Usage(Path path, long bytes, long files) {
+    }
+
+    // adds everything below root that passes the filter, and returns root's total
+    public Usage add(FileEntry root, FileFilter filter) {
+        if (!root.isDirectory()) {
+            Path parent = root.path().getParent() != null ? root.path().getParent() : root.path();
+            if (!filter.matches(parent, root)) {
+                return new Usage(root.path(), 0, 0);
+            }
+            Usage usage = new Usage(root.path(), root.size(), 1);
+            local.get().files.offer(usage);
+            return usage;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new FolderTask(root.path(), root.path(), 1, filter));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // the largest folders seen so far, largest first
+    public List<Usage> largestFolders() {
+        return merge(true);
+    }
+
+    // the largest files seen so far, largest first
+    public List<Usage> largestFiles() {
+        return merge(false);
+    }
+
+    private List<Usage> merge(boolean folders) {
+        TopN<Usage> merged = new TopN<>(top, SMALLEST_FIRST);
+        for (Accumulator accumulator : accumulators) {
+            for (Usage usage : folders ? accumulator.folders.items() : accumulator.files.items()) {
+                merged.offer(usage);
+            }
+        }
+        return merged.sorted();
+    }
+
+    // the per-thread part, only ever touched by the thread that owns it until the merge
+    private class Accumulator {
+        private final TopN<Usage> folders = new TopN<>(top, SMALLEST_FIRST);
+        private final TopN<Usage> files = new TopN<>(top, SMALLEST_FIRST);
+    }
+
+    // never serialized, fork/join tasks only inherit Serializable
+    @SuppressWarnings("serial")
+    private class FolderTask extends RecursiveTask<Usage> {
+        private final Path root;
+        private final Path folder;
+        private final int depth;
+        private final FileFilter filter;
+
+        FolderTask(Path root, Path folder, int depth, FileFilter filter) {
+            this.root = root;
+            this.folder = folder;
+            this.depth = depth;
+            this.filter = filter;
+        }
+
+        @Override
+        protected Usage compute() {
+            long bytes = 0;
+            long files = 0;
+            List<FolderTask> subfolders = new ArrayList<>();
+
+            for (FileWalker.Child child : FileWalker.listDirectory(root, folder, depth, filter)) {
+                if (child.descend()) {
+                    FolderTask task = new FolderTask(root, child.entry().path(), depth + 1, filter);
+                    task.fork();
+                    subfolders.add(task);
+                } else if (child.matches() && child.entry().isRegularFile()) {
+                    bytes += child.entry().size();
+                    files++;
+                    local.get().files.offer(new Usage(child.entry().path(), child.entry().size(), 1));
+                }
+            }
+            for (FolderTask task : subfolders) {
+                Usage sub = task.join();
+                bytes += sub.bytes();
+                files += sub.files();
+            }
+
+            Usage usage = new Usage(folder, bytes, files);
+            local.get().folders.offer(usage);
+            return usage;
+        }
+    }
+}
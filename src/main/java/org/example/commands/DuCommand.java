@@ -0,0 +1,95 @@
+package org.example.commands;
+
+import org.example.enumeration.FileType;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+@Command(
+        name = "du",
+        mixinStandardHelpOptions = true,
+        description = "Show what takes up space: folder totals and the largest files and folders"
+)
+public class DuCommand implements Callable<Integer> {
+
+    @Parameters(index = "0", arity = "0..*", description = "Folder path(s) (default: current directory)")
+    private List<Path> targets = List.of(Path.of("."));
+
+    @Option(names = {"-dc", "--datecreated"}, description = "Only count files created on this date (YYYY-MM-DD).")
+    private LocalDate dateCreated;
+
+    @Option(names = {"-ext", "--extension"}, description = "Only count files with this extension.")
+    private String extension;
+
+    @Option(names = {"-lsz", "--lessthansize"}, description = "Only count files smaller than this size (in MB).")
+    private double lessThanSize;
+
+    @Option(names = {"-gsz", "--greaterthansize"}, description = "Only count files larger than this size (in MB).")
+    private double greaterThanSize;
+
+    @Option(names = "--glob", description = "Only count files whose name matches this glob (patterns with a '/' match the path below the given folder). Can be repeated.")
+    private List<String> globs;
+
+    @Option(names = "--exclude", description = "Skip entries matching this glob, excluded folders are not searched at all. Can be repeated.")
+    private List<String> excludes;
+
+    @Option(names = "--top", description = "How many of the largest files and folders to show (default: 20).")
+    private int top = 20;
+
+    @Option(names = {"-t", "--threads"}, description = "Number of threads used to walk folders (default: number of CPU cores).")
+    private int threads = FileWalker.defaultThreads();
+
+    @Override
+    public Integer call() throws Exception {
+        FileFilter filter = new FileFilter(FileType.FILE, dateCreated, extension,
+                lessThanSize, greaterThanSize, globs, excludes, FileFilter.UNLIMITED_DEPTH);
+        DiskUsage usage = new DiskUsage(top, threads);
+
+        long totalBytes = 0, totalFiles = 0;
+        for (Path target : targets) {
+            Path resolved = target.toAbsolutePath().normalize();
+            FileEntry root;
+            try {
+                root = FileEntry.read(resolved);
+            } catch (NoSuchFileException e) {
+                System.err.println("Warning: Path does not exist: " + resolved);
+                continue;
+            } catch (IOException e) {
+                System.err.println("Warning: Could not read attributes of " + resolved);
+                continue;
+            }
+
+            DiskUsage.Usage total = usage.add(root, filter);
+            System.out.printf("%10s  %s  (%d file(s))%n", FileFetcher.formatSize(total.bytes()), resolved, total.files());
+            totalBytes += total.bytes();
+            totalFiles += total.files();
+        }
+
+        if (totalFiles == 0) {
+            System.out.println("No files found.");
+            return 0;
+        }
+
+        System.out.println("\nLargest folders:");
+        for (DiskUsage.Usage folder : usage.largestFolders()) {
+            System.out.printf("%10s  %s  (%d file(s))%n", FileFetcher.formatSize(folder.bytes()), folder.path(), folder.files());
+        }
+
+        System.out.println("\nLargest files:");
+        for (DiskUsage.Usage file : usage.largestFiles()) {
+            System.out.printf("%10s  %s%n", FileFetcher.formatSize(file.bytes()), file.path());
+        }
+
+        if (targets.size() > 1) {
+            System.out.printf("%nTotal: %s in %d file(s).%n", FileFetcher.formatSize(totalBytes), totalFiles);
+        }
+        return 0;
+    }
+}
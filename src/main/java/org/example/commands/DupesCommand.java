@@ -0,0 +1,123 @@
+package org.example.commands;
+
+import org.example.enumeration.FileType;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.Callable;
+
+@Command(
+        name = "dupes",
+        mixinStandardHelpOptions = true,
+        description = "Find files with identical contents"
+)
+public class DupesCommand implements Callable<Integer> {
+
+    @Parameters(index = "0", arity = "0..*", description = "Folder path(s) or file globs (default: current directory)")
+    private List<Path> targets = List.of(Path.of("."));
+
+    @Option(names = {"-r", "--recursive"}, description = "Recursive means that any folder and subsequent subfolders will be affected.")
+    private boolean recursive;
+
+    @Option(names = {"-ext", "--extension"}, description = "Extension to filter out the files.")
+    private String extension;
+
+    @Option(names = {"-lsz", "--lessthansize"}, description = "Filter out files having size less than the one provided.")
+    private double lessThanSize;
+
+    @Option(names = {"-gsz", "--greaterthansize"}, description = "Filter out files having size greater than the one provided.")
+    private double greaterThanSize;
+
+    @Option(names = "--glob", description = "Only include entries whose name matches this glob (patterns with a '/' match the path below the given folder). Can be repeated.")
+    private List<String> globs;
+
+    @Option(names = "--exclude", description = "Skip entries matching this glob, excluded folders are not searched at all. Can be repeated.")
+    private List<String> excludes;
+
+    @Option(names = "--max-depth", description = "Do not look more than this many levels below the given folders.")
+    private int maxDepth;
+
+    @Option(names = {"-t", "--threads"}, description = "Number of threads used to walk folders and hash files (default: number of CPU cores).")
+    private int threads = FileWalker.defaultThreads();
+
+    @Option(names = "--delete", description = "Delete every copy but the first one found (moves to trash unless -p is given).")
+    private boolean delete;
+
+    @Option(names = {"-p", "--permanent"}, description = "With --delete, permanently delete (bypass trash)")
+    private boolean permanent;
+
+    @Override
+    public Integer call() throws Exception {
+        FileFilter filter = new FileFilter(FileType.FILE, null, extension,
+                lessThanSize, greaterThanSize, globs, excludes, maxDepth);
+        List<FileEntry> files = FileFetcher.getFiles(targets, recursive, filter, threads);
+
+        DuplicateFinder finder = new DuplicateFinder(threads);
+        List<List<FileEntry>> groups = finder.find(files);
+
+        System.out.printf("Scanned %d file(s): %d shared a size, %d had their edges hashed, %d were hashed in full (%s read).%n",
+                files.size(), finder.candidates(), finder.edgeHashed(), finder.fullyHashed(), FileFetcher.formatSize(finder.bytesRead()));
+
+        if (groups.isEmpty()) {
+            System.out.println("No duplicates found.");
+            return 0;
+        }
+
+        long wasted = 0;
+        List<FileEntry> extraCopies = new ArrayList<>();
+        for (List<FileEntry> group : groups) {
+            long size = group.get(0).size();
+            System.out.printf("%n%d copies, %s each:%n", group.size(), FileFetcher.formatSize(size));
+            for (FileEntry file : group) {
+                System.out.println("  " + file.path());
+            }
+            wasted += size * (group.size() - 1);
+            extraCopies.addAll(group.subList(1, group.size()));
+        }
+        System.out.printf("%nFound %d group(s) of duplicates, %s can be freed.%n", groups.size(), FileFetcher.formatSize(wasted));
+
+        if (delete) {
+            deleteCopies(extraCopies);
+        }
+        return 0;
+    }
+
+    // the first file of every group stays, the rest goes the same way 'ordo delete' would send it
+    private void deleteCopies(List<FileEntry> copies) throws Exception {
+        System.out.printf("About to %s %d duplicate file(s), keeping the first copy of each.%n",
+                permanent ? "PERMANENTLY delete" : "move to trash", copies.size());
+        System.out.print("Continue? (y/N): ");
+        if (!new Scanner(System.in).nextLine().trim().equalsIgnoreCase("y")) {
+            System.out.println("Aborted.");
+            return;
+        }
+
+        if (permanent) {
+            PurgeEngine engine = new PurgeEngine(threads);
+            engine.purge(copies);
+            return;
+        }
+
+        long trashed = 0, failed = 0;
+        try (TrashStore trash = new TrashStore()) {
+            for (FileEntry copy : copies) {
+                try {
+                    trash.moveToTrash(copy);
+                    System.out.println("Trashed file:   " + copy.path());
+                    trashed++;
+                } catch (Exception e) {
+                    Stats.failed("trash", copy.path(), e.getMessage());
+                    System.err.println("Failed to trash: " + copy.path());
+                    System.err.println("  → " + e.getMessage());
+                    failed++;
+                }
+            }
+        }
+        System.out.printf("%nTrashed %d duplicate(s), %d failed.%n", trashed, failed);
+    }
+}
@@ -0,0 +1,194 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+// finds files with identical contents in three rounds, each one only looking at what the
+// previous round could not tell apart:
+//   1. size, taken from the attributes the walk already read (no I/O at all)
+//   2. a hash of the first and last few KB of every file that shares its size with another
+//   3. a full SHA-256 of the files that still collide, read through memory-mapped windows
+// files are hashed in parallel, and groups keep the order in which the walk found the files.
+public class DuplicateFinder {
+
+    // bytes read from each end of a file in round 2. files up to twice this size are read
+    // completely there and never need round 3.
+    private static final int EDGE_SIZE = 4 * 1024;
+
+    // mapped window for the full hash, keeps the mapping well below the 2 GB buffer limit
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final int threads;
+
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder edgeHashed = new LongAdder();
+    private final LongAdder fullyHashed = new LongAdder();
+    private long candidates;
+
+    public DuplicateFinder(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    // groups of two or more identical files, the first file of every group is the one found first
+    public List<List<FileEntry>> find(List<FileEntry> files) {
+        // round 1: same size. empty files are all "identical" and never worth reporting.
+        // hard links to one file are the same data, not a duplicate, so only the first is kept.
+        Map<Long, List<FileEntry>> bySize = new LinkedHashMap<>();
+        Set<Object> seenKeys = new HashSet<>();
+        for (FileEntry file : files) {
+            if (!file.isRegularFile() || file.size() == 0) {
+                continue;
+            }
+            Object key = file.attributes().fileKey();
+            if (key != null && !seenKeys.add(key)) {
+                continue;
+            }
+            bySize.computeIfAbsent(file.size(), size -> new ArrayList<>()).add(file);
+        }
+        List<List<FileEntry>> sameSize = collisions(bySize.values());
+        for (List<FileEntry> group : sameSize) {
+            candidates += group.size();
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "ordo-dupes");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // round 2: same first and last bytes
+            List<List<FileEntry>> sameEdges = new ArrayList<>();
+            for (List<FileEntry> group : sameSize) {
+                sameEdges.addAll(regroup(pool, group, this::edgeHash));
+            }
+
+            // round 3: same contents. small files were read completely in round 2 already.
+            List<List<FileEntry>> duplicates = new ArrayList<>();
+            for (List<FileEntry> group : sameEdges) {
+                if (group.get(0).size() <= 2L * EDGE_SIZE) {
+                    duplicates.add(group);
+                } else {
+                    duplicates.addAll(regroup(pool, group, this::fullHash));
+                }
+            }
+            return duplicates;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // files that were the same size as another file, and had to be read at all
+    public long candidates() {
+        return candidates;
+    }
+
+    public long edgeHashed() {
+        return edgeHashed.sum();
+    }
+
+    public long fullyHashed() {
+        return fullyHashed.sum();
+    }
+
+    public long bytesRead() {
+        return bytesRead.sum();
+    }
+
+    private interface Hasher {
+        String hash(FileEntry file) throws IOException;
+    }
+
+    // hashes every file of the group in parallel and splits it by hash. unreadable files drop out.
+    private List<List<FileEntry>> regroup(ExecutorService pool, List<FileEntry> group, Hasher hasher) {
+        List<Future<String>> hashes = new ArrayList<>(group.size());
+        for (FileEntry file : group) {
+            hashes.add(pool.submit(() -> hasher.hash(file)));
+        }
+
+        Map<String, List<FileEntry>> byHash = new LinkedHashMap<>();
+        for (int i = 0; i < group.size(); i++) {
+            try {
+                byHash.computeIfAbsent(hashes.get(i).get(), hash -> new ArrayList<>()).add(group.get(i));
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                System.err.println("Warning: Could not read " + group.get(i).path() + " (" + cause.getMessage() + ")");
+            }
+        }
+        return collisions(byHash.values());
+    }
+
+    private static List<List<FileEntry>> collisions(Iterable<List<FileEntry>> groups) {
+        List<List<FileEntry>> result = new ArrayList<>();
+        for (List<FileEntry> group : groups) {
+            if (group.size() > 1) {
+                result.add(group);
+            }
+        }
+        return result;
+    }
+
+    private String edgeHash(FileEntry file) throws IOException {
+        MessageDigest digest = sha256();
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= 2L * EDGE_SIZE) {
+                readFully(channel, 0, (int) size, digest);
+            } else {
+                readFully(channel, 0, EDGE_SIZE, digest);
+                readFully(channel, size - EDGE_SIZE, EDGE_SIZE, digest);
+            }
+        }
+        edgeHashed.increment();
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void readFully(FileChannel channel, long position, int length, MessageDigest digest) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                break;  // the file shrank since it was listed, hash what is there
+            }
+        }
+        buffer.flip();
+        bytesRead.add(buffer.remaining());
+        digest.update(buffer);
+    }
+
+    private String fullHash(FileEntry file) throws IOException {
+        MessageDigest digest = sha256();
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += WINDOW_SIZE) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, size - position));
+                bytesRead.add(window.remaining());
+                digest.update(window);
+            }
+        }
+        fullyHashed.increment();
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package org.example.commands;
+
+import org.example.enumeration.OutputFormat;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.attribute.BasicFileAttributes;
+
+// writes listed entries to stdout in one of the --format layouts.
+// every line is encoded straight into one big reused buffer (UTF-8 by hand, numbers and timestamps
+// digit by digit), so a line allocates nothing beyond the path string the walk already has, and
+// stdout sees one write per megabyte instead of a flushed printf per entry.
+// sizes and times come from the attributes read during the walk, nothing is stat'ed again.
+public class EntryWriter {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final byte[] HEX = "0123456789abcdef".getBytes();
+
+    private final WritableByteChannel out;
+    private final OutputFormat format;
+    private final boolean nameOnly;
+    private final byte[] bytes = new byte[BUFFER_SIZE];
+    private final ByteBuffer view = ByteBuffer.wrap(bytes);
+    private int position;
+
+    public EntryWriter(OutputFormat format, boolean nameOnly) {
+        // fd 1 itself, System.out's own buffering and locking are skipped. never closed, only flushed.
+        // inside the daemon, stdout is the client's connection behind System.out.
+        this.out = DaemonCommand.serving()
+                ? Channels.newChannel(System.out)
+                : new FileOutputStream(FileDescriptor.out).getChannel();
+        this.format = format;
+        this.nameOnly = nameOnly;
+    }
+
+    // the first line of the output, only CSV has one
+    public void header() {
+        if (format == OutputFormat.CSV) {
+            ascii("path,type,size,modified,created\n");
+        }
+    }
+
+    // a failed write (usually a closed pipe, as in "ordo list ... | head") ends the listing
+    // with an UncheckedIOException, there is nobody left to read the rest
+    public void write(FileEntry entry) {
+        String display = nameOnly ? entry.fileName() : entry.path().toString();
+        BasicFileAttributes attributes = entry.attributes();
+
+        switch (format) {
+            case TEXT -> {
+                utf8(display);
+                if (entry.isRegularFile()) {
+                    long sizeMB = entry.size() / (1024 * 1024);
+                    ascii("  (");
+                    if (sizeMB > 0) {
+                        number(sizeMB);
+                        ascii(" MB)");
+                    } else {
+                        ascii("< 1 MB)");
+                    }
+                } else {
+                    ascii("  <DIR>");
+                }
+                put('\n');
+            }
+            case NDJSON -> {
+                ascii("{\"path\":\"");
+                jsonEscaped(display);
+                ascii("\",\"type\":\"");
+                ascii(type(attributes));
+                ascii("\",\"size\":");
+                number(attributes.size());
+                ascii(",\"modified\":\"");
+                timestamp(attributes.lastModifiedTime().toMillis());
+                ascii("\",\"created\":\"");
+                timestamp(attributes.creationTime().toMillis());
+                ascii("\"}\n");
+            }
+            case CSV -> {
+                csvField(display);
+                put(',');
+                ascii(type(attributes));
+                put(',');
+                number(attributes.size());
+                put(',');
+                timestamp(attributes.lastModifiedTime().toMillis());
+                put(',');
+                timestamp(attributes.creationTime().toMillis());
+                put('\n');
+            }
+            case PRINT0 -> {
+                utf8(display);
+                put('\0');
+            }
+        }
+    }
+
+    public void flush() {
+        view.clear().limit(position);
+        try {
+            while (view.hasRemaining()) {
+                out.write(view);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            position = 0;
+        }
+    }
+
+    private static String type(BasicFileAttributes attributes) {
+        if (attributes.isRegularFile()) {
+            return "file";
+        }
+        if (attributes.isDirectory()) {
+            return "dir";
+        }
+        return attributes.isSymbolicLink() ? "link" : "other";
+    }
+
+    private void put(int b) {
+        if (position == bytes.length) {
+            flush();
+        }
+        bytes[position++] = (byte) b;
+    }
+
+    private void ascii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            put(text.charAt(i));
+        }
+    }
+
+    private void utf8(String text) {
+        utf8(text, 0, text.length());
+    }
+
+    private void utf8(String text, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                put(c);
+            } else if (c < 0x800) {
+                put(0xC0 | (c >> 6));
+                put(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                put(0xF0 | (codePoint >> 18));
+                put(0x80 | ((codePoint >> 12) & 0x3F));
+                put(0x80 | ((codePoint >> 6) & 0x3F));
+                put(0x80 | (codePoint & 0x3F));
+            } else {
+                // a lone surrogate has no UTF-8 form, same replacement the JDK encoder uses
+                if (Character.isSurrogate(c)) {
+                    c = '?';
+                }
+                put(0xE0 | (c >> 12));
+                put(0x80 | ((c >> 6) & 0x3F));
+                put(0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void jsonEscaped(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                put('\\');
+                put(c);
+            } else if (c < 0x20) {
+                ascii("\\u00");
+                put(HEX[c >> 4]);
+                put(HEX[c & 0xF]);
+            } else if (c < 0x80) {
+                put(c);
+            } else {
+                // a run of non-ASCII characters in one go, keeps surrogate pairs together
+                int end = i + 1;
+                while (end < text.length() && text.charAt(end) >= 0x80) {
+                    end++;
+                }
+                utf8(text, i, end);
+                i = end - 1;
+            }
+        }
+    }
+
+    // RFC 4180: quoted (with doubled quotes) only when the value needs it
+    private void csvField(String text) {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            utf8(text);
+            return;
+        }
+        put('"');
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == '"') {
+                utf8(text, start, i + 1);
+                put('"');
+                start = i + 1;
+            }
+        }
+        utf8(text, start, text.length());
+        put('"');
+    }
+
+    private void number(long value) {
+        if (value < 0) {
+            put('-');
+            value = -value;
+        }
+        digits(value, 1);
+    }
+
+    // writes value with at least width digits, zero padded
+    private void digits(long value, int width) {
+        long divisor = 1;
+        int length = 1;
+        while (divisor <= value / 10) {
+            divisor *= 10;
+            length++;
+        }
+        for (int i = length; i < width; i++) {
+            put('0');
+        }
+        for (; divisor > 0; divisor /= 10) {
+            put('0' + (int) (value / divisor % 10));
+        }
+    }
+
+    // ISO-8601 in UTC with milliseconds, e.g. 2024-03-01T09:30:00.250Z.
+    // the calendar math is the days-to-civil conversion java.time uses, minus the objects.
+    private void timestamp(long epochMillis) {
+        long days = Math.floorDiv(epochMillis, 86_400_000L);
+        long millisOfDay = Math.floorMod(epochMillis, 86_400_000L);
+
+        long z = days + 719_468;
+        long era = Math.floorDiv(z, 146_097);
+        long dayOfEra = z - era * 146_097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        long day = dayOfYear - (153 * monthIndex + 2) / 5 + 1;
+        long month = monthIndex < 10 ? monthIndex + 3 : monthIndex - 9;
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year < 0) {
+            put('-');
+            year = -year;
+        }
+        digits(year, 4);
+        put('-');
+        digits(month, 2);
+        put('-');
+        digits(day, 2);
+        put('T');
+        digits(millisOfDay / 3_600_000, 2);
+        put(':');
+        digits(millisOfDay / 60_000 % 60, 2);
+        put(':');
+        digits(millisOfDay / 1_000 % 60, 2);
+        put('.');
+        digits(millisOfDay % 1_000, 3);
+        put('Z');
+    }
+}
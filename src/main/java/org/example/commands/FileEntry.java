@@ -0,0 +1,50 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+// a path together with the attributes read for it while walking.
+// every command works on these, so a file is stat'ed once and never again.
+public record FileEntry(Path path, BasicFileAttributes attributes) {
+
+    // reads the attributes of a single path with one stat.
+    // symbolic links are followed so a link to a file still counts as a file.
+    public static FileEntry read(Path path) throws IOException {
+        Stats.stated();
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        return new FileEntry(path, followLink(path, attributes));
+    }
+
+    // only links pay for the second stat. a broken link keeps its own attributes.
+    static BasicFileAttributes followLink(Path path, BasicFileAttributes attributes) {
+        if (!attributes.isSymbolicLink()) {
+            return attributes;
+        }
+        try {
+            Stats.stated();
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return attributes;
+        }
+    }
+
+    public boolean isDirectory() {
+        return attributes.isDirectory();
+    }
+
+    public boolean isRegularFile() {
+        return attributes.isRegularFile();
+    }
+
+    public long size() {
+        return attributes.size();
+    }
+
+    public String fileName() {
+        Path name = path.getFileName();
+        return name != null ? name.toString() : path.toString();
+    }
+}
@@ -1,155 +1,156 @@
 package org.example.commands;
 
-import org.example.enumeration.FileTransfer;
 import org.example.enumeration.FileType;
+import org.example.enumeration.IndexMode;
 
 import java.io.IOException;
-import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class FileFetcher {
 
     // this method is to get a list of all file paths provided by the user.
     // the single files are added as is. but the folders are checked (if true, then recursively)
-    public static List<Path> getFiles(
+    public static List<FileEntry> getFiles(
             List<Path> targets,
             boolean recursive,
-            LocalDate dateCreated,
-            String extension,
-            double lessThanSizeMB,    // in MB
-            double greaterThanSizeMB, // in MB
-            FileType type             // FILE, DIRECTORY, or ALL
+            FileFilter filter,        // compiled from the command's filter options
+            int threads               // threads used to walk recursive targets
     ) throws IOException {
-        List<Path> allFiles = new ArrayList<>();
-        long lessThanBytes = lessThanSizeMB > 0 ? (long) (lessThanSizeMB * 1024 * 1024) : Long.MAX_VALUE;
-        long greaterThanBytes = greaterThanSizeMB > 0 ? (long) (greaterThanSizeMB * 1024 * 1024) : 0;
-
-        // Normalize extension (e.g., "jpg" or ".jpg" → "jpg")
-        String targetExt = extension != null ? extension.toLowerCase().replaceFirst("^\\.*", "") : null;
+        List<FileEntry> allFiles = new ArrayList<>();
 
         for (Path target : targets) {
-            Path resolved = target.toAbsolutePath().normalize();
-
-            if (!Files.exists(resolved)) {
-                System.err.println("Warning: Path does not exist: " + resolved);
-                continue;
-            }
-
-            List<Path> candidates = new ArrayList<>();
-
-            if (Files.isRegularFile(resolved)) {
-                candidates.add(resolved);
-            } else if (Files.isDirectory(resolved)) {
-                if (recursive) {
-                    Files.walk(resolved)
-                            .filter(p -> type == FileType.BOTH ||
-                                    (type == FileType.FILE && Files.isRegularFile(p)) ||
-                                    (type == FileType.DIRECTORY && Files.isDirectory(p)))
-                            .forEach(candidates::add);
-                } else {
-                    try (DirectoryStream<Path> stream = Files.newDirectoryStream(resolved)) {
-                        for (Path entry : stream) {
-                            if (type == FileType.BOTH ||
-                                    (type == FileType.FILE && Files.isRegularFile(entry)) ||
-                                    (type == FileType.DIRECTORY && Files.isDirectory(entry))) {
-                                candidates.add(entry);
-                            }
-                        }
-                    }
-                }
-            }
-
-            // Now apply all filters
-            for (Path file : candidates) {
-                boolean matches = true;
-
-                // Extension filter
-                if (targetExt != null) {
-                    String fileName = file.getFileName().toString().toLowerCase();
-                    matches = fileName.endsWith("." + targetExt) || fileName.equals(targetExt);
-                }
-
-                // Size filters
-                if (matches) {
-                    try {
-                        long size = Files.size(file);
-                        if (size >= lessThanBytes) matches = false;     // too big
-                        if (size < greaterThanBytes) matches = false;   // too small
-                    } catch (IOException e) {
-                        System.err.println("Warning: Could not read size of " + file);
-                        matches = false;
-                    }
-                }
-
-                // Date created filter (approximate — uses last modified if creation not available)
-                if (matches && dateCreated != null) {
-                    try {
-                        var creationTime = Files.readAttributes(file, BasicFileAttributes.class).creationTime();
-                        var fileTime = creationTime != null
-                                ? creationTime.toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDate()
-                                : Files.getLastModifiedTime(file).toInstant().atZone(java.time.ZoneId.systemDefault()).toLocalDate();
-
-                        matches = fileTime.equals(dateCreated);
-                    } catch (IOException e) {
-                        System.err.println("Warning: Could not read date of " + file);
-                        matches = false;
-                    }
-                }
-
-                if (matches) {
-                    allFiles.add(file);
-                }
-            }
+            visit(target, recursive, filter, threads, false, IndexMode.NONE, allFiles::add);
         }
 
         return allFiles;
     }
 
-    public static List<Path> getAllFiles(
-            List<Path> targets, boolean recursive, FileType type
+    // streaming version of getFiles(). matches are handed to the consumer while the walk is
+    // still running (same order as getFiles), and nothing is kept once the consumer is done with it.
+    public static void streamFiles(
+            List<Path> targets,
+            boolean recursive,
+            FileFilter filter,
+            int threads,
+            Consumer<FileEntry> consumer
     ) throws IOException {
-        List<Path> allFiles = new ArrayList<>();
+        streamFiles(targets, recursive, filter, threads, IndexMode.NONE, consumer);
+    }
 
+    // with an index mode other than NONE, recursive folders are answered from the metadata index
+    // in ~/.ordo/index, which only lists folders again when they changed since the last run.
+    public static void streamFiles(
+            List<Path> targets,
+            boolean recursive,
+            FileFilter filter,
+            int threads,
+            IndexMode index,
+            Consumer<FileEntry> consumer
+    ) throws IOException {
         for (Path target : targets) {
-            Path resolved = target.toAbsolutePath().normalize();
+            visit(target, recursive, filter, threads, true, index, consumer);
+        }
+    }
+
+    public static List<FileEntry> getAllFiles(
+            List<Path> targets, boolean recursive, FileType type, int threads
+    ) throws IOException {
+        return getFiles(targets, recursive, FileFilter.of(type), threads);
+    }
 
-            if (!Files.exists(resolved)) {
-                System.err.println("Warning: Path does not exist: " + resolved);
-                continue;
+    // the single files are added as is, folders are listed (recursively if asked).
+    // every candidate is stat'ed at most once and carries its attributes from here on.
+    // a target that does not exist but contains wildcards ("photos/*.jpg", "src/**/*.java") is a
+    // file glob: the folder in front of the first wildcard is walked, as deep as the pattern reaches.
+    private static void visit(
+            Path target, boolean recursive, FileFilter filter,
+            int threads, boolean streaming, IndexMode index, Consumer<FileEntry> consumer
+    ) {
+        if (isGlob(target) && !Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+            int literal = 0;
+            while (literal < target.getNameCount() && !isGlob(target.getName(literal))) {
+                literal++;
+            }
+            List<String> pattern = new ArrayList<>();
+            for (int i = literal; i < target.getNameCount(); i++) {
+                pattern.add(target.getName(i).toString());
+            }
+            Path base = literal == 0 ? target.getRoot() : target.subpath(0, literal);
+            if (target.getRoot() != null && literal > 0) {
+                base = target.getRoot().resolve(base);
             }
 
-            List<Path> candidates = new ArrayList<>();
-
-            if (Files.isRegularFile(resolved)) {
-                candidates.add(resolved);
-            } else if (Files.isDirectory(resolved)) {
-                if (recursive) {
-                    Files.walk(resolved)
-                            .filter(p -> type == FileType.BOTH ||
-                                    (type == FileType.FILE && Files.isRegularFile(p)) ||
-                                    (type == FileType.DIRECTORY && Files.isDirectory(p)))
-                            .forEach(candidates::add);
-                } else {
-                    try (DirectoryStream<Path> stream = Files.newDirectoryStream(resolved)) {
-                        for (Path entry : stream) {
-                            if (type == FileType.BOTH ||
-                                    (type == FileType.FILE && Files.isRegularFile(entry)) ||
-                                    (type == FileType.DIRECTORY && Files.isDirectory(entry))) {
-                                candidates.add(entry);
-                            }
-                        }
+            target = base != null ? base : Path.of(".");
+            filter = filter.matchingTarget(String.join("/", pattern));
+            recursive = true;
+        }
+
+        Path resolved = target.toAbsolutePath().normalize();
+
+        FileEntry root;
+        try {
+            root = FileEntry.read(resolved);
+        } catch (NoSuchFileException e) {
+            System.err.println("Warning: Path does not exist: " + resolved);
+            return;
+        } catch (IOException e) {
+            System.err.println("Warning: Could not read attributes of " + resolved);
+            return;
+        }
+
+        if (root.isRegularFile()) {
+            Path parent = resolved.getParent() != null ? resolved.getParent() : resolved;
+            if (filter.matches(parent, root)) {
+                consumer.accept(root);
+            }
+        } else if (root.isDirectory()) {
+            if (recursive && index != IndexMode.NONE) {
+                MetadataIndex metadataIndex = MetadataIndex.open(resolved, index == IndexMode.REBUILD);
+                metadataIndex.walk(root, filter, consumer);
+                metadataIndex.save();
+            } else if (recursive && streaming) {
+                FileWalker.stream(root, filter, threads, consumer);
+            } else if (recursive) {
+                FileWalker.walk(root, filter, threads).forEach(consumer);
+            } else {
+                for (FileWalker.Child child : FileWalker.listDirectory(resolved, resolved, 1, filter.limitDepth(1))) {
+                    if (child.matches()) {
+                        consumer.accept(child.entry());
                     }
                 }
             }
-            allFiles.addAll(candidates);
         }
+    }
 
-        return allFiles;
+    private static boolean isGlob(Path path) {
+        String text = path.toString();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '*' || c == '?' || c == '[' || c == '{') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // human readable size, e.g. "1.5 GB"
+    public static String formatSize(long bytes) {
+        if (bytes >= 1024L * 1024 * 1024) {
+            return String.format("%.1f GB", bytes / (1024.0 * 1024 * 1024));
+        }
+        if (bytes >= 1024 * 1024) {
+            return String.format("%.1f MB", bytes / (1024.0 * 1024));
+        }
+        if (bytes >= 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return bytes + " B";
     }
 
     public static String getExtension(String fileName) {
@@ -0,0 +1,229 @@
+package org.example.commands;
+
+import org.example.enumeration.FileType;
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+// the filter options of a command compiled once into the checks the walk runs per entry.
+// the checks are split by cost: excluded(), matchesName() and canDescend() only look at the name
+// and depth, so the walk can skip an entry (or a whole subtree) before it is even stat'ed.
+// matchesAttributes() needs the stat and only runs for entries that passed the name checks.
+public class FileFilter {
+
+    public static final int UNLIMITED_DEPTH = Integer.MAX_VALUE;
+
+    private final FileType type;
+    private final LocalDate dateCreated;
+    private final String extension;
+    private final long lessThanBytes;
+    private final long greaterThanBytes;
+
+    // patterns without a '/' match the file name, the others the path relative to the walked folder
+    private final List<PathMatcher> nameGlobs;
+    private final List<PathMatcher> pathGlobs;
+    private final List<PathMatcher> nameExcludes;
+    private final List<PathMatcher> pathExcludes;
+    // glob targets ("photos/*.jpg"), every one of them must match on top of --glob
+    private final List<PathMatcher> targetGlobs;
+    private final int maxDepth;
+
+    public FileFilter(
+            FileType type,
+            LocalDate dateCreated,
+            String extension,
+            double lessThanSizeMB,    // in MB
+            double greaterThanSizeMB, // in MB
+            List<String> globs,
+            List<String> excludes,
+            int maxDepth
+    ) {
+        this.type = type;
+        this.dateCreated = dateCreated;
+        // Normalize extension (e.g., "jpg" or ".jpg" → "jpg")
+        this.extension = extension != null && !extension.isEmpty()
+                ? extension.toLowerCase().replaceFirst("^\\.*", "") : null;
+        this.lessThanBytes = lessThanSizeMB > 0 ? (long) (lessThanSizeMB * 1024 * 1024) : Long.MAX_VALUE;
+        this.greaterThanBytes = greaterThanSizeMB > 0 ? (long) (greaterThanSizeMB * 1024 * 1024) : 0;
+        this.nameGlobs = matchers(globs, false);
+        this.pathGlobs = matchers(globs, true);
+        this.nameExcludes = matchers(excludes, false);
+        this.pathExcludes = matchers(excludes, true);
+        this.targetGlobs = List.of();
+        this.maxDepth = maxDepth > 0 ? maxDepth : UNLIMITED_DEPTH;
+    }
+
+    private FileFilter(FileFilter base, List<PathMatcher> targetGlobs, int maxDepth) {
+        this.type = base.type;
+        this.dateCreated = base.dateCreated;
+        this.extension = base.extension;
+        this.lessThanBytes = base.lessThanBytes;
+        this.greaterThanBytes = base.greaterThanBytes;
+        this.nameGlobs = base.nameGlobs;
+        this.pathGlobs = base.pathGlobs;
+        this.nameExcludes = base.nameExcludes;
+        this.pathExcludes = base.pathExcludes;
+        this.targetGlobs = targetGlobs;
+        this.maxDepth = maxDepth;
+    }
+
+    // no filters at all, only the type
+    public static FileFilter of(FileType type) {
+        return new FileFilter(type, null, null, 0, 0, List.of(), List.of(), UNLIMITED_DEPTH);
+    }
+
+    // true when any option besides --max-depth narrows the selection
+    public boolean hasFilters() {
+        return dateCreated != null || extension != null
+                || lessThanBytes != Long.MAX_VALUE || greaterThanBytes != 0
+                || !nameGlobs.isEmpty() || !pathGlobs.isEmpty()
+                || !nameExcludes.isEmpty() || !pathExcludes.isEmpty();
+    }
+
+    // same filter, but never deeper than depth below the walked folder
+    public FileFilter limitDepth(int depth) {
+        return new FileFilter(this, targetGlobs, Math.min(maxDepth, depth));
+    }
+
+    // same filter, restricted to paths matching a glob target like "photos/**/*.jpg".
+    // the pattern is relative to the folder the walk starts in.
+    public FileFilter matchingTarget(String pattern) {
+        List<PathMatcher> globs = new ArrayList<>(targetGlobs);
+        globs.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+        int depth = pattern.contains("**") ? maxDepth : Math.min(maxDepth, pattern.split("/").length);
+        return new FileFilter(this, List.copyOf(globs), depth);
+    }
+
+    // --exclude hit or deeper than --max-depth: not listed, not stat'ed, not walked into
+    public boolean excluded(Path root, Path path, int depth) {
+        if (depth > maxDepth) {
+            return true;
+        }
+        if (!nameExcludes.isEmpty()) {
+            Path name = path.getFileName();
+            for (PathMatcher exclude : nameExcludes) {
+                if (exclude.matches(name)) {
+                    return true;
+                }
+            }
+        }
+        if (!pathExcludes.isEmpty()) {
+            Path relative = root.relativize(path);
+            for (PathMatcher exclude : pathExcludes) {
+                if (exclude.matches(relative)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public boolean canDescend(int depth) {
+        return depth < maxDepth;
+    }
+
+    // extension and --glob, answered from the name alone
+    public boolean matchesName(Path root, Path path) {
+        if (extension != null) {
+            String fileName = path.getFileName() != null ? path.getFileName().toString().toLowerCase() : "";
+            if (!fileName.endsWith("." + extension) && !fileName.equals(extension)) {
+                return false;
+            }
+        }
+        if (!targetGlobs.isEmpty()) {
+            Path relative = root.relativize(path);
+            for (PathMatcher target : targetGlobs) {
+                if (!target.matches(relative)) {
+                    return false;
+                }
+            }
+        }
+        if (!nameGlobs.isEmpty() || !pathGlobs.isEmpty()) {
+            return anyGlobMatches(root, path);
+        }
+        return true;
+    }
+
+    // type, size and creation date, answered from the attributes read during the walk
+    public boolean matchesAttributes(FileEntry file) {
+        if (!FileWalker.matchesType(file, type)) {
+            return false;
+        }
+
+        // Size filters
+        long size = file.size();
+        if (size >= lessThanBytes) return false;     // too big
+        if (size < greaterThanBytes) return false;   // too small
+
+        // Date created filter (approximate — uses last modified if creation not available)
+        if (dateCreated != null) {
+            var creationTime = file.attributes().creationTime();
+            var fileTime = creationTime != null
+                    ? creationTime.toInstant().atZone(ZoneId.systemDefault()).toLocalDate()
+                    : file.attributes().lastModifiedTime().toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+
+            return fileTime.equals(dateCreated);
+        }
+        return true;
+    }
+
+    // both stages, for entries that were already stat'ed
+    public boolean matches(Path root, FileEntry file) {
+        return matchesName(root, file.path()) && matchesAttributes(file);
+    }
+
+    // for entries that did not come from a walk pruned by this filter: --max-depth and
+    // --exclude are checked for every folder between root and the entry as well
+    public boolean admits(Path root, FileEntry file) {
+        Path relative = root.relativize(file.path());
+        int depth = relative.getNameCount();
+        if (depth > maxDepth) {
+            return false;
+        }
+        if (!nameExcludes.isEmpty() || !pathExcludes.isEmpty()) {
+            Path current = root;
+            for (int i = 0; i < depth; i++) {
+                current = current.resolve(relative.getName(i));
+                if (excluded(root, current, i + 1)) {
+                    return false;
+                }
+            }
+        }
+        return matches(root, file);
+    }
+
+    private boolean anyGlobMatches(Path root, Path path) {
+        Path name = path.getFileName();
+        for (PathMatcher glob : nameGlobs) {
+            if (name != null && glob.matches(name)) {
+                return true;
+            }
+        }
+        if (!pathGlobs.isEmpty()) {
+            Path relative = root.relativize(path);
+            for (PathMatcher glob : pathGlobs) {
+                if (glob.matches(relative)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<PathMatcher> matchers(List<String> patterns, boolean withSeparator) {
+        List<PathMatcher> matchers = new ArrayList<>();
+        if (patterns != null) {
+            for (String pattern : patterns) {
+                if (pattern.contains("/") == withSeparator) {
+                    matchers.add(FileSystems.getDefault().getPathMatcher("glob:" + pattern));
+                }
+            }
+        }
+        return List.copyOf(matchers);
+    }
+}
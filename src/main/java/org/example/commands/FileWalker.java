@@ -0,0 +1,300 @@
+package org.example.commands;
+
+import org.example.enumeration.FileType;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+public class FileWalker {
+
+    // how many directory listings the streaming walk may read ahead per thread
+    private static final int PREFETCH_PER_THREAD = 32;
+
+    private static final FileFilter EVERYTHING = FileFilter.of(FileType.BOTH);
+
+    public static int defaultThreads() {
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    // walks the whole tree below root, one fork/join task per directory.
+    // entries of every directory are sorted by name and the subtrees are stitched back together
+    // in pre-order (same as Files.walk, root first), so the result is identical from run to run
+    // no matter how many threads did the work.
+    // excluded entries and everything below --max-depth are pruned while listing, the walk never enters them.
+    public static List<FileEntry> walk(FileEntry root, FileFilter filter, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            Listing listing = pool.invoke(new DirectoryTask(root.path(), root.path(), 1, filter));
+
+            List<FileEntry> result = new ArrayList<>();
+            if (filter.matches(root.path(), root)) {
+                result.add(root);
+            }
+            flatten(listing, result);
+            return result;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // same order as walk(), but entries are handed to the consumer as soon as they are reached
+    // instead of being collected first. the consumer is always called from the calling thread.
+    // worker threads read directory listings ahead of the consumer, but never more than a fixed
+    // number of them, so memory stays flat however big the tree is.
+    public static void stream(FileEntry root, FileFilter filter, int threads, Consumer<FileEntry> consumer) {
+        int parallelism = Math.max(1, threads);
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "ordo-walker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Prefetcher prefetcher = new Prefetcher(pool, new Semaphore(parallelism * PREFETCH_PER_THREAD), root.path(), filter);
+
+        try {
+            if (filter.matches(root.path(), root)) {
+                consumer.accept(root);
+            }
+
+            // explicit stack instead of recursion, deep trees must not overflow the thread stack
+            Deque<Iterator<Pending>> stack = new ArrayDeque<>();
+            stack.push(prefetcher.take(new Pending(root, true, false, 0)).iterator());
+
+            while (!stack.isEmpty()) {
+                Iterator<Pending> children = stack.peek();
+                if (!children.hasNext()) {
+                    stack.pop();
+                    continue;
+                }
+                Pending child = children.next();
+                if (child.matches) {
+                    consumer.accept(child.entry);
+                }
+                if (child.descend) {
+                    stack.push(prefetcher.take(child).iterator());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    static boolean matchesType(FileEntry entry, FileType type) {
+        return type == FileType.BOTH ||
+                (type == FileType.FILE && entry.isRegularFile()) ||
+                (type == FileType.DIRECTORY && entry.isDirectory());
+    }
+
+    // reads one directory completely, see the filtered version below
+    static List<Child> listDirectory(Path directory) {
+        return listDirectory(directory, directory, 1, EVERYTHING);
+    }
+
+    // reads one directory whose entries sit depth levels below root: every entry gets at most one
+    // stat (two for symbolic links), and the result is sorted by name so walks are repeatable.
+    // the filter runs cheapest first. excluded names are dropped before the stat, and so are names
+    // that fail the name checks when the walk would not go into them anyway. what is left is
+    // stat'ed, and only entries that match or are walked into are returned.
+    static List<Child> listDirectory(Path root, Path directory, int depth, FileFilter filter) {
+        DaemonCommand.checkCancelled();
+        boolean mayDescend = filter.canDescend(depth);
+        List<Child> children = new ArrayList<>();
+        Stats.DirectoryEvent event = Stats.startDirectory();
+        int entries = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path entry : stream) {
+                entries++;
+                if (filter.excluded(root, entry, depth)) {
+                    continue;
+                }
+                boolean nameMatches = filter.matchesName(root, entry);
+                if (!nameMatches && !mayDescend) {
+                    continue;
+                }
+
+                // like Files.walk, symbolic links to directories are listed but not followed
+                BasicFileAttributes attributes;
+                try {
+                    Stats.stated();
+                    attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    Stats.failed("stat", entry, e.getMessage());
+                    System.err.println("Warning: Could not read attributes of " + entry);
+                    continue;
+                }
+                FileEntry child = new FileEntry(entry, FileEntry.followLink(entry, attributes));
+                boolean descend = attributes.isDirectory() && mayDescend;
+                boolean matches = nameMatches && filter.matchesAttributes(child);
+                if (matches || descend) {
+                    children.add(new Child(child, descend, matches));
+                }
+            }
+        } catch (IOException e) {
+            Stats.failed("list", directory, e.getMessage());
+            System.err.println("Warning: Could not read directory: " + directory);
+            return List.of();
+        } finally {
+            Stats.finishDirectory(event, directory, entries);
+        }
+        children.sort(Comparator.comparing(child -> child.entry().fileName()));
+        return children;
+    }
+
+    // a listed entry, whether the walk goes into it (directories, but not links to them)
+    // and whether it passed the filter
+    record Child(FileEntry entry, boolean descend, boolean matches) {
+    }
+
+    // joins the per-directory listings without copying every level into its parent
+    private static void flatten(Listing root, List<FileEntry> result) {
+        Deque<Listing> stack = new ArrayDeque<>();
+        Deque<Integer> positions = new ArrayDeque<>();
+        stack.push(root);
+        positions.push(0);
+
+        while (!stack.isEmpty()) {
+            Listing current = stack.peek();
+            int position = positions.pop();
+
+            if (position >= current.entries.size()) {
+                stack.pop();
+                continue;
+            }
+            positions.push(position + 1);
+
+            FileEntry entry = current.entries.get(position);
+            if (current.matches.get(position)) {
+                result.add(entry);
+            }
+            Listing sub = current.subdirectories.get(position);
+            if (sub != null) {
+                stack.push(sub);
+                positions.push(0);
+            }
+        }
+    }
+
+    // children of one directory in name order. subdirectories[i] is the listing of entries[i]
+    // when that entry is a directory we descended into, otherwise null.
+    private record Listing(List<FileEntry> entries, List<Boolean> matches, List<Listing> subdirectories) {
+    }
+
+    // never serialized, fork/join tasks only inherit Serializable
+    @SuppressWarnings("serial")
+    private static class DirectoryTask extends RecursiveTask<Listing> {
+        private final Path root;
+        private final Path directory;
+        private final int depth;
+        private final FileFilter filter;
+
+        DirectoryTask(Path root, Path directory, int depth, FileFilter filter) {
+            this.root = root;
+            this.directory = directory;
+            this.depth = depth;
+            this.filter = filter;
+        }
+
+        @Override
+        protected Listing compute() {
+            List<Child> children = listDirectory(root, directory, depth, filter);
+
+            List<FileEntry> entries = new ArrayList<>(children.size());
+            List<Boolean> matches = new ArrayList<>(children.size());
+            List<DirectoryTask> tasks = new ArrayList<>(children.size());
+            for (Child child : children) {
+                entries.add(child.entry());
+                matches.add(child.matches());
+                if (child.descend()) {
+                    DirectoryTask task = new DirectoryTask(root, child.entry().path(), depth + 1, filter);
+                    task.fork();
+                    tasks.add(task);
+                } else {
+                    tasks.add(null);
+                }
+            }
+
+            List<Listing> subdirectories = new ArrayList<>(children.size());
+            for (DirectoryTask task : tasks) {
+                subdirectories.add(task == null ? null : task.join());
+            }
+            return new Listing(entries, matches, subdirectories);
+        }
+    }
+
+    // an entry of the streaming walk. for directories, listing is set once a worker has started
+    // reading it ahead of the consumer (it stays null if the read-ahead budget was used up).
+    private static class Pending {
+        private final FileEntry entry;
+        private final boolean descend;
+        private final boolean matches;
+        private final int depth;
+        private volatile CompletableFuture<List<Pending>> listing;
+
+        Pending(FileEntry entry, boolean descend, boolean matches, int depth) {
+            this.entry = entry;
+            this.descend = descend;
+            this.matches = matches;
+            this.depth = depth;
+        }
+    }
+
+    private static class Prefetcher {
+        private final ExecutorService pool;
+        private final Semaphore budget;
+        private final Path root;
+        private final FileFilter filter;
+
+        Prefetcher(ExecutorService pool, Semaphore budget, Path root, FileFilter filter) {
+            this.pool = pool;
+            this.budget = budget;
+            this.root = root;
+            this.filter = filter;
+        }
+
+        // hands a directory's children to the consumer, reading it now if nobody read it ahead
+        List<Pending> take(Pending directory) {
+            CompletableFuture<List<Pending>> listing = directory.listing;
+            if (listing == null) {
+                return submit(directory).join();
+            }
+            List<Pending> children = listing.join();
+            budget.release();
+            return children;
+        }
+
+        private CompletableFuture<List<Pending>> submit(Pending directory) {
+            return CompletableFuture.supplyAsync(() -> read(directory.entry.path(), directory.depth + 1), pool);
+        }
+
+        // runs on a worker. once a directory is read, its subdirectories are queued for reading
+        // too, as long as the read-ahead budget allows it.
+        private List<Pending> read(Path directory, int depth) {
+            List<Child> children = listDirectory(root, directory, depth, filter);
+            List<Pending> pending = new ArrayList<>(children.size());
+            for (Child child : children) {
+                Pending entry = new Pending(child.entry(), child.descend(), child.matches(), depth);
+                if (entry.descend && budget.tryAcquire()) {
+                    entry.listing = submit(entry);
+                }
+                pending.add(entry);
+            }
+            return pending;
+        }
+    }
+}
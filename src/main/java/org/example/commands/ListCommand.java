@@ -1,19 +1,26 @@
 package org.example.commands;
 
 import org.example.enumeration.FileType;
+import org.example.enumeration.IndexMode;
+import org.example.enumeration.OutputFormat;
+import org.example.enumeration.SortKey;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 import picocli.CommandLine.Command;
 
-import java.nio.file.Files;
+import java.io.Serial;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.regex.PatternSyntaxException;
 
-import static org.example.commands.FileFetcher.getAllFiles;
-import static org.example.commands.FileFetcher.getFiles;
+import static org.example.commands.FileFetcher.streamFiles;
 
 @Command(
         name = "list",
@@ -43,68 +50,187 @@ public class ListCommand implements Callable<Integer> {
     @Option(names = {"-gsz", "--greaterthansize"}, description = "Filter out files and folders having size greater than the one provided.")
     private double greaterThanSize;
 
+    @Option(names = "--glob", description = "Only include entries whose name matches this glob (patterns with a '/' match the path below the given folder). Can be repeated.")
+    private List<String> globs;
+
+    @Option(names = "--exclude", description = "Skip entries matching this glob, excluded folders are not searched at all. Can be repeated.")
+    private List<String> excludes;
+
+    @Option(names = "--max-depth", description = "Do not look more than this many levels below the given folders.")
+    private int maxDepth;
+
+    @Option(names = "--contains", description = "Only include files containing this text. Searched after the other filters, in parallel (-t threads), up to the first match.")
+    private String contains;
+
+    @Option(names = "--regex", description = "Treat --contains as a regular expression, matched within a line.")
+    private boolean regex;
+
+    @Option(names = {"-t", "--threads"}, description = "Number of threads used to walk folders recursively (default: number of CPU cores).")
+    private int threads = FileWalker.defaultThreads();
+
+    @Option(names = "--index", negatable = true, description = "Answer recursive listings from the metadata index in ~/.ordo/index, re-reading only folders that changed since the last run.")
+    private boolean useIndex;
+
+    @Option(names = "--reindex", description = "Rebuild the metadata index from scratch (implies --index).")
+    private boolean reindex;
+
+    @Option(names = "--watch", description = "Keep running and print new or modified items matching the filters as they appear.")
+    private boolean watch;
+
+    @Option(names = "--format", description = "Output format: text (default), ndjson, csv or print0 (NUL-separated paths for xargs -0). ndjson and csv carry exact sizes in bytes and UTC timestamps, the machine formats print nothing else to stdout.")
+    private OutputFormat format = OutputFormat.TEXT;
+
+    @Option(names = "--sort", description = "Sort by size, mtime, ctime (creation time) or name. Largest and newest come first, names go a to z.")
+    private SortKey sort;
+
+    @Option(names = "--reverse", description = "Reverse the --sort order.")
+    private boolean reverse;
+
+    @Option(names = "--limit", description = "Only show this many items (the first ones in --sort order).")
+    private int limit;
+
     @Override
     public Integer call() throws Exception {
-        List<Path> allFiles = new ArrayList<>();
-
         // Determine if any filter is active (excluding recursive and filenameOnly)
         boolean hasFilter = (dateCreated != null) ||
                 (extension != null && !extension.isEmpty()) ||
                 (lessThanSize > 0) ||
-                (greaterThanSize > 0);
-
-        if (hasFilter) {
-            // Any real filter → use filtered getFiles()
-            allFiles = getFiles(
-                    folderPath, recursive, dateCreated, extension,
-                    lessThanSize, greaterThanSize, FileType.FILE
-            );
-        } else if (recursive) {
-            // Only --recursive (no other filters) → get everything recursively
-            allFiles = getAllFiles(folderPath, true, FileType.FILE);
-        } else {
-            // No filters and no recursive → list only direct children (files + folders)
-            for (Path target : folderPath) {
-                Path resolved = target.toAbsolutePath().normalize();
-
-                if (!Files.exists(resolved)) {
-                    System.err.println("Warning: Path does not exist: " + resolved);
-                    continue;
-                }
+                (greaterThanSize > 0) ||
+                (globs != null) ||
+                (excludes != null) ||
+                (contains != null);
+
+        // Any real filter or --recursive → files only.
+        // No filters and no recursive → list only direct children (files + folders)
+        FileType type = hasFilter || recursive ? FileType.FILE : FileType.BOTH;
+
+        ContentMatcher content;
+        try {
+            content = contains != null ? new ContentMatcher(contains, regex) : null;
+        } catch (PatternSyntaxException e) {
+            System.err.println("Error: Invalid --contains pattern: " + e.getDescription());
+            return 1;
+        }
+
+        EntryWriter writer = new EntryWriter(format, filenameOnly);
+        try {
+            listItems(type, writer, content);
+        } catch (UncheckedIOException e) {
+            // stdout was closed, e.g. "ordo list -r . | head", nobody is reading any more
+        }
+        return 0;
+    }
+
+    private void listItems(FileType type, EntryWriter writer, ContentMatcher content) throws Exception {
+        boolean text = format == OutputFormat.TEXT;
+        Comparator<FileEntry> order = order();
+        if (reverse && order == null) {
+            System.err.println("Warning: --reverse only applies together with --sort, ignored.");
+        }
 
-                if (Files.isRegularFile(resolved)) {
-                    allFiles.add(resolved);
-                } else if (Files.isDirectory(resolved)) {
-                    try (var stream = Files.newDirectoryStream(resolved)) {
-                        for (Path entry : stream) {
-                            if (Files.isRegularFile(entry) || Files.isDirectory(entry)) {
-                                allFiles.add(entry);
-                            }
-                        }
-                    }
+        // unsorted, items are written as the walk finds them and nothing is collected.
+        // sorted with a --limit, a bounded heap keeps only the first limit items while walking.
+        // sorted without one, everything is collected and sorted on all cores at the end.
+        // the time spent printing is also added up on its own, a slow terminal can dominate it.
+        long[] count = {0};
+        long[] printNanos = {0};
+        Consumer<FileEntry> print = item -> {
+            long start = System.nanoTime();
+            writer.write(item);
+            printNanos[0] += System.nanoTime() - start;
+            count[0]++;
+        };
+        TopN<FileEntry> top = order != null && limit > 0 ? new TopN<>(limit, order.reversed()) : null;
+        List<FileEntry> all = order != null && top == null ? new ArrayList<>() : null;
+
+        FileFilter filter = new FileFilter(type, dateCreated, extension,
+                lessThanSize, greaterThanSize, globs, excludes, maxDepth);
+        Consumer<FileEntry> collect = item -> {
+            if (top != null) {
+                top.offer(item);
+            } else if (all != null) {
+                all.add(item);
+            } else {
+                print.accept(item);
+                if (count[0] == limit) {
+                    throw new LimitReached();
                 }
             }
+        };
+        writer.header();
+        // with --contains the files that passed the other filters are searched first, still in walk order
+        try (ContentScan scan = content != null ? new ContentScan(content, threads, collect) : null) {
+            Stats.timed("list", "collect", () -> {
+                streamFiles(folderPath, recursive, filter, threads, indexMode(), scan != null ? scan : collect);
+                if (scan != null) {
+                    scan.finish();
+                }
+            });
+        } catch (LimitReached e) {
+            // --limit without --sort: the first items found are all we need, the walk stops here
         }
 
-        if (allFiles.isEmpty()) {
+        if (order != null) {
+            List<FileEntry> sorted = Stats.timed("list", "sort", () -> {
+                if (top != null) {
+                    return top.sorted();
+                }
+                FileEntry[] entries = all.toArray(FileEntry[]::new);
+                Arrays.parallelSort(entries, order);
+                return Arrays.asList(entries);
+            });
+            sorted.forEach(print);
+        }
+        writer.flush();
+        Stats.time("list", "print", printNanos[0]);
+
+        if (text && count[0] == 0) {
             System.out.println("No items found.");
-            return 0;
+        } else if (text) {
+            System.out.println("\nFound " + count[0] + " item(s).");
         }
 
-        System.out.println("Found " + allFiles.size() + " item(s):\n");
+        if (watch) {
+            try (DirectoryWatcher watcher = new DirectoryWatcher(folderPath, recursive, filter)) {
+                (text ? System.out : System.err).println("\nWatching for changes, press Ctrl+C to stop...");
+                watcher.watch(batch -> {
+                    (content != null ? ContentScan.matching(content, threads, batch) : batch).forEach(writer::write);
+                    writer.flush();
+                });
+            }
+        }
+    }
 
-        for (Path item : allFiles) {
-            String display = filenameOnly ? item.getFileName().toString() : item.toString();
+    // the order items are printed in: largest and newest first for sizes and times (like ls -S and ls -t),
+    // a to z for names. ties go by path, so the same tree always lists the same way.
+    private Comparator<FileEntry> order() {
+        if (sort == null) {
+            return null;
+        }
+        Comparator<FileEntry> order = switch (sort) {
+            case SIZE -> Comparator.comparingLong(FileEntry::size).reversed();
+            case MTIME -> Comparator.comparing((FileEntry entry) -> entry.attributes().lastModifiedTime()).reversed();
+            case CTIME -> Comparator.comparing((FileEntry entry) -> entry.attributes().creationTime()).reversed();
+            case NAME -> Comparator.comparing(FileEntry::fileName);
+        };
+        order = order.thenComparing(FileEntry::path);
+        return reverse ? order.reversed() : order;
+    }
 
-            if (Files.isRegularFile(item)) {
-                long sizeMB = Files.size(item) / (1024 * 1024);
-                String sizeStr = sizeMB > 0 ? sizeMB + " MB" : "< 1 MB";
-                System.out.printf("%s  (%s)%n", display, sizeStr);
-            } else {
-                System.out.printf("%s  <DIR>%n", display);
-            }
+    // ends an unsorted walk early once --limit items are out, no stack trace needed
+    private static class LimitReached extends RuntimeException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        LimitReached() {
+            super(null, null, false, false);
         }
+    }
 
-        return 0;
+    private IndexMode indexMode() {
+        if (reindex) {
+            return IndexMode.REBUILD;
+        }
+        return useIndex ? IndexMode.USE : IndexMode.NONE;
     }
 }
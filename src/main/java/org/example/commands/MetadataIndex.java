@@ -0,0 +1,327 @@
+package org.example.commands;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// on-disk cache of a directory tree (name, size, mtime, creation time of every entry) kept
+// under ~/.ordo/index, one file per walked root.
+// a directory is only listed again when its own mtime changed since it was indexed, so a repeated
+// query costs one stat per directory instead of one per file. note that editing a file in place
+// does not touch its folder's mtime, use --reindex when sizes or dates must be exact.
+public class MetadataIndex {
+
+    private static final String MAGIC = "ORDO-INDEX-1";
+
+    // directories modified this recently are not trusted yet, a change in the same
+    // timestamp tick would otherwise go unnoticed on the next run
+    private static final long UNSTABLE_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private static final byte REGULAR = 1;
+    private static final byte DIRECTORY = 2;
+    private static final byte OTHER = 4;
+    private static final byte DESCEND = 8;
+
+    // the daemon keeps every index it loaded or saved in memory, so a repeated query does not even
+    // read the index file. the copy is used as long as the file is still the one it was saved as
+    // (no ordo outside the daemon wrote it since).
+    private static final Map<Path, Resident> RESIDENT = new ConcurrentHashMap<>();
+    private static volatile boolean keepResident;
+
+    private record Resident(Map<String, Folder> folders, FileTime savedAs) {
+    }
+
+    private final Path root;
+    private final Path file;
+    private final Map<String, Folder> previous;
+    private final Map<String, Folder> current = new HashMap<>();
+    private boolean dirty;
+    private long listed;
+    private long reused;
+
+    private MetadataIndex(Path root, Path file, Map<String, Folder> previous) {
+        this.root = root;
+        this.file = file;
+        this.previous = previous;
+    }
+
+    public static Path indexDirectory() {
+        return Path.of(System.getProperty("user.home"), ".ordo", "index");
+    }
+
+    static void keepResident() {
+        keepResident = true;
+    }
+
+    // loads the index of root, or starts an empty one when there is none or it should be rebuilt
+    public static MetadataIndex open(Path root, boolean rebuild) {
+        Path file = indexDirectory().resolve(fileNameFor(root));
+        Map<String, Folder> folders = new HashMap<>();
+
+        Resident resident = keepResident && !rebuild ? RESIDENT.get(root) : null;
+        if (resident != null && Objects.equals(resident.savedAs(), savedAs(file))) {
+            return new MetadataIndex(root, file, resident.folders());
+        }
+
+        if (!rebuild && Files.exists(file)) {
+            try {
+                folders = read(file, root);
+            } catch (IOException e) {
+                System.err.println("Warning: Ignoring unreadable index " + file + " (" + e.getMessage() + ")");
+                folders = new HashMap<>();
+            }
+        }
+        return new MetadataIndex(root, file, folders);
+    }
+
+    // same contract as FileWalker.stream(): pre-order, children sorted by name, consumer on the calling thread.
+    // listings are cached in full, the filter is applied on top of them (excluded folders are not entered).
+    public void walk(FileEntry rootEntry, FileFilter filter, Consumer<FileEntry> consumer) {
+        Path rootPath = rootEntry.path();
+        if (filter.matches(rootPath, rootEntry)) {
+            consumer.accept(rootEntry);
+        }
+
+        Deque<Iterator<FileWalker.Child>> stack = new ArrayDeque<>();
+        stack.push(children(rootEntry.path(), rootEntry.attributes().lastModifiedTime()).iterator());
+
+        while (!stack.isEmpty()) {
+            Iterator<FileWalker.Child> children = stack.peek();
+            if (!children.hasNext()) {
+                stack.pop();
+                continue;
+            }
+            FileWalker.Child child = children.next();
+            // the stack holds one listing per level, so its height is the depth of child
+            int depth = stack.size();
+            if (filter.excluded(rootPath, child.entry().path(), depth)) {
+                continue;
+            }
+            if (filter.matches(rootPath, child.entry())) {
+                consumer.accept(child.entry());
+            }
+            if (child.descend() && filter.canDescend(depth)) {
+                // the one stat a cached directory still costs: is its listing still valid?
+                FileTime modified;
+                try {
+                    modified = Files.getLastModifiedTime(child.entry().path(), LinkOption.NOFOLLOW_LINKS);
+                } catch (IOException e) {
+                    dirty = true;
+                    continue;
+                }
+                stack.push(children(child.entry().path(), modified).iterator());
+            }
+        }
+    }
+
+    // writes the index back if anything changed. folders that were not reached by the walk are dropped.
+    public void save() {
+        if (!dirty && current.size() == previous.size()) {
+            remember();
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                write(out);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            remember();
+        } catch (IOException e) {
+            System.err.println("Warning: Could not save index " + file + " (" + e.getMessage() + ")");
+        }
+    }
+
+    // listings are never changed once built, the next walk can start from this one's as they are
+    private void remember() {
+        FileTime savedAs = savedAs(file);
+        if (keepResident && savedAs != null) {
+            RESIDENT.put(root, new Resident(current, savedAs));
+        }
+    }
+
+    private static FileTime savedAs(Path file) {
+        try {
+            return Files.getLastModifiedTime(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public long listedFolders() {
+        return listed;
+    }
+
+    public long reusedFolders() {
+        return reused;
+    }
+
+    private List<FileWalker.Child> children(Path directory, FileTime modified) {
+        String key = key(directory);
+        long modifiedNanos = modified.to(TimeUnit.NANOSECONDS);
+
+        Folder cached = previous.get(key);
+        if (cached != null && cached.modified == modifiedNanos) {
+            current.put(key, cached);
+            reused++;
+            return cached.toChildren(directory);
+        }
+
+        List<FileWalker.Child> children = FileWalker.listDirectory(directory);
+        boolean stable = System.currentTimeMillis() * 1_000_000L - modifiedNanos > UNSTABLE_NANOS;
+        current.put(key, Folder.of(stable ? modifiedNanos : Long.MIN_VALUE, children));
+        dirty = true;
+        listed++;
+        return children;
+    }
+
+    private String key(Path directory) {
+        return root.relativize(directory).toString();
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        out.writeUTF(MAGIC);
+        out.writeUTF(root.toString());
+        out.writeInt(current.size());
+        for (Map.Entry<String, Folder> folder : current.entrySet()) {
+            out.writeUTF(folder.getKey());
+            out.writeLong(folder.getValue().modified);
+            out.writeInt(folder.getValue().entries.size());
+            for (Indexed entry : folder.getValue().entries) {
+                out.writeUTF(entry.name);
+                out.writeByte(entry.flags);
+                out.writeLong(entry.size);
+                out.writeLong(entry.modified);
+                out.writeLong(entry.created);
+            }
+        }
+    }
+
+    private static Map<String, Folder> read(Path file, Path root) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (!MAGIC.equals(in.readUTF()) || !root.toString().equals(in.readUTF())) {
+                throw new IOException("index belongs to another version or folder");
+            }
+            int folderCount = in.readInt();
+            Map<String, Folder> folders = new HashMap<>(folderCount * 2);
+            for (int i = 0; i < folderCount; i++) {
+                String key = in.readUTF();
+                long modified = in.readLong();
+                int count = in.readInt();
+                List<Indexed> entries = new ArrayList<>(count);
+                for (int j = 0; j < count; j++) {
+                    entries.add(new Indexed(in.readUTF(), in.readByte(), in.readLong(), in.readLong(), in.readLong()));
+                }
+                folders.put(key, new Folder(modified, entries));
+            }
+            return folders;
+        } catch (NoSuchFileException e) {
+            return new HashMap<>();
+        }
+    }
+
+    private static String fileNameFor(Path root) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(root.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest) + ".idx";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // one listed folder: its mtime when it was read and its children in name order
+    private record Folder(long modified, List<Indexed> entries) {
+
+        static Folder of(long modified, List<FileWalker.Child> children) {
+            List<Indexed> entries = new ArrayList<>(children.size());
+            for (FileWalker.Child child : children) {
+                BasicFileAttributes attributes = child.entry().attributes();
+                byte flags = attributes.isRegularFile() ? REGULAR : attributes.isDirectory() ? DIRECTORY : OTHER;
+                if (child.descend()) {
+                    flags |= DESCEND;
+                }
+                entries.add(new Indexed(child.entry().fileName(), flags, attributes.size(),
+                        attributes.lastModifiedTime().toMillis(), attributes.creationTime().toMillis()));
+            }
+            return new Folder(modified, entries);
+        }
+
+        List<FileWalker.Child> toChildren(Path directory) {
+            List<FileWalker.Child> children = new ArrayList<>(entries.size());
+            for (Indexed entry : entries) {
+                FileEntry fileEntry = new FileEntry(directory.resolve(entry.name), entry);
+                children.add(new FileWalker.Child(fileEntry, (entry.flags & DESCEND) != 0, true));
+            }
+            return children;
+        }
+    }
+
+    // attributes as they were when the folder was indexed
+    private record Indexed(String name, byte flags, long size, long modified, long created) implements BasicFileAttributes {
+
+        @Override
+        public FileTime lastModifiedTime() {
+            return FileTime.fromMillis(modified);
+        }
+
+        @Override
+        public FileTime lastAccessTime() {
+            return FileTime.fromMillis(modified);
+        }
+
+        @Override
+        public FileTime creationTime() {
+            return FileTime.fromMillis(created);
+        }
+
+        @Override
+        public boolean isRegularFile() {
+            return (flags & REGULAR) != 0;
+        }
+
+        @Override
+        public boolean isDirectory() {
+            return (flags & DIRECTORY) != 0;
+        }
+
+        @Override
+        public boolean isSymbolicLink() {
+            return false;
+        }
+
+        @Override
+        public boolean isOther() {
+            return (flags & OTHER) != 0;
+        }
+
+        @Override
+        public Object fileKey() {
+            return null;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.example.commands;
 
+import org.example.enumeration.StatsFormat;
 import picocli.CommandLine;
 
 @CommandLine.Command(
@@ -12,11 +13,34 @@ import picocli.CommandLine;
                 ListCommand.class,
                 DeleteCommand.class,
                 TransferCommand.class,
-                ExplorerCommand.class
+                ExplorerCommand.class,
+                TrashCommand.class,
+                DupesCommand.class,
+                DuCommand.class,
+                RunCommand.class,
+                DaemonCommand.class,
+                ArchiveCommand.class
         }
 )
 public class Ordo implements Runnable{
 
+    // a plain flag: an optional value would take the path after it ("--stats src") as the format
+    @CommandLine.Option(names = "--stats", scope = CommandLine.ScopeType.INHERIT,
+            description = "After the command, print directories visited, entries stat'ed, bytes copied, failed calls and the time per phase (to stderr).")
+    private boolean stats;
+
+    @CommandLine.Option(names = "--stats-format", scope = CommandLine.ScopeType.INHERIT,
+            description = "Format of the --stats summary: text (default) or json. Implies --stats.")
+    private StatsFormat statsFormat;
+
+    // null when no summary was asked for
+    public StatsFormat stats() {
+        if (statsFormat != null) {
+            return statsFormat;
+        }
+        return stats ? StatsFormat.TEXT : null;
+    }
+
     @Override
     public void run() {
         System.out.print("""
@@ -0,0 +1,192 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.Deflater;
+
+// the pigz idea behind 'ordo archive': the data is cut into blocks that are deflated on every
+// core at once, and one writer thread puts the results into the file in their original order.
+// a block can continue the deflate stream of the one before it: it is flushed to a byte boundary
+// instead of finished, and gets the last 32 KB in front of it as dictionary, so the blocks join
+// into one ordinary deflate stream that compresses almost as well as a serial one.
+final class ParallelDeflater {
+
+    static final int BLOCK_SIZE = 1024 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    // something the writer thread does with the output, in the order it was queued
+    interface Step {
+        void write(FileChannel out) throws IOException;
+    }
+
+    private static final Step END = out -> {
+    };
+
+    private final FileChannel out;
+    private final ExecutorService compressors;
+    // bounds what is read ahead of the writer: a few blocks per compressor
+    private final BlockingQueue<Step> steps;
+    private final Thread writer;
+    private volatile Throwable failure;
+
+    // a deflater per thread and level, reset for every block
+    private final ThreadLocal<Deflater[]> deflaters = ThreadLocal.withInitial(() -> new Deflater[10]);
+
+    ParallelDeflater(FileChannel out, int jobs) {
+        int workerCount = Math.max(1, jobs);
+        this.out = out;
+        this.compressors = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "ordo-deflate");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.steps = new ArrayBlockingQueue<>(workerCount * 4);
+        this.writer = new Thread(this::writeSteps, "ordo-archive-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // compresses length bytes of data on the pool. dictionary is what came right before it in the
+    // same stream (null at the start), finish ends the stream, otherwise it stays open for the next block.
+    Future<ByteBuffer> deflate(byte[] data, int length, byte[] dictionary, boolean finish, int level) {
+        return compressors.submit(() -> compress(data, length, dictionary, finish, level));
+    }
+
+    // the last 32 KB of a block, for the block after it
+    static byte[] dictionary(byte[] block, int length) {
+        return Arrays.copyOfRange(block, Math.max(0, length - DICTIONARY_SIZE), length);
+    }
+
+    // queues a step for the writer thread. blocks while the writer is too far behind.
+    void then(Step step) {
+        try {
+            steps.put(step);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("Interrupted while archiving"));
+        }
+        checkFailure();
+    }
+
+    // writes everything queued and stops the threads
+    void finish() throws IOException {
+        try {
+            steps.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while archiving");
+        } finally {
+            compressors.shutdownNow();
+        }
+        try {
+            checkFailure();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // stops the threads without writing what is still queued, for an archive that is given up on.
+    // nothing is written to the file once this returns. after finish() there is nothing left to stop.
+    void abort() {
+        compressors.shutdownNow();
+        writer.interrupt();
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static long write(FileChannel out, ByteBuffer data) throws IOException {
+        long written = 0;
+        while (data.hasRemaining()) {
+            written += out.write(data);
+        }
+        return written;
+    }
+
+    // waits for a compressed block, on the writer thread
+    static ByteBuffer await(Future<ByteBuffer> block) throws IOException {
+        try {
+            return block.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while archiving");
+        }
+    }
+
+    private void checkFailure() {
+        Throwable failed = failure;
+        if (failed != null) {
+            throw new UncheckedIOException(failed instanceof IOException io ? io : new IOException(failed));
+        }
+    }
+
+    private void writeSteps() {
+        while (true) {
+            Step step;
+            try {
+                step = steps.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (step == END) {
+                return;
+            }
+            // after a failure the queue is still drained, so the reading side never blocks on it
+            if (failure == null) {
+                try {
+                    step.write(out);
+                } catch (Throwable e) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    private ByteBuffer compress(byte[] data, int length, byte[] dictionary, boolean finish, int level) {
+        Deflater[] perLevel = deflaters.get();
+        Deflater deflater = perLevel[level];
+        if (deflater == null) {
+            // raw deflate, the zip and gzip framing is written around it
+            deflater = new Deflater(level, true);
+            perLevel[level] = deflater;
+        }
+        deflater.reset();
+        if (dictionary != null && dictionary.length > 0) {
+            deflater.setDictionary(dictionary);
+        }
+        deflater.setInput(data, 0, length);
+        if (finish) {
+            deflater.finish();
+        }
+
+        byte[] output = new byte[length + length / 1000 + 64];
+        int size = 0;
+        while (true) {
+            if (size == output.length) {
+                output = Arrays.copyOf(output, output.length * 2);
+            }
+            int space = output.length - size;
+            int produced = deflater.deflate(output, size, space, finish ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+            size += produced;
+            // a sync flush is complete once it did not fill the space it was given
+            if (finish ? deflater.finished() : produced < space) {
+                break;
+            }
+        }
+        return ByteBuffer.wrap(output, 0, size);
+    }
+}
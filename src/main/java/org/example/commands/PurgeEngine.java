@@ -0,0 +1,154 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// permanently deletes files and whole folder trees.
+// every folder is one fork/join task: its files are deleted right away, its subfolders are
+// purged in parallel, and the folder itself goes last once it is empty (leaves first).
+public class PurgeEngine {
+
+    private final int threads;
+
+    private final LongAdder filesDeleted = new LongAdder();
+    private final LongAdder foldersDeleted = new LongAdder();
+    private final LongAdder filesFailed = new LongAdder();
+    private final LongAdder foldersFailed = new LongAdder();
+
+    public PurgeEngine(int threads) {
+        this.threads = Math.max(1, threads);
+    }
+
+    // deletes every item (folders with all their contents) and prints progress while doing it
+    public void purge(List<FileEntry> items) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        ScheduledExecutorService progress = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ordo-purge-progress");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long start = System.nanoTime();
+        progress.scheduleAtFixedRate(() -> printProgress(start, false), 1, 1, TimeUnit.SECONDS);
+
+        try {
+            List<RecursiveAction> tasks = new ArrayList<>(items.size());
+            for (FileEntry item : items) {
+                // a link to a folder is removed as a link, its target is never touched
+                tasks.add(item.isDirectory() && !Files.isSymbolicLink(item.path())
+                        ? new FolderTask(item.path())
+                        : new FileTask(item.path()));
+            }
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } finally {
+            progress.shutdownNow();
+            pool.shutdown();
+        }
+        printProgress(start, true);
+    }
+
+    public long filesDeleted() {
+        return filesDeleted.sum();
+    }
+
+    public long foldersDeleted() {
+        return foldersDeleted.sum();
+    }
+
+    public long filesFailed() {
+        return filesFailed.sum();
+    }
+
+    public long foldersFailed() {
+        return foldersFailed.sum();
+    }
+
+    private void printProgress(long start, boolean done) {
+        long items = filesDeleted.sum() + foldersDeleted.sum();
+        double seconds = Math.max((System.nanoTime() - start) / 1e9, 0.001);
+        if (done) {
+            System.out.printf("Purged %d file(s) and %d folder(s) in %.1f s (%.0f items/s)%n",
+                    filesDeleted.sum(), foldersDeleted.sum(), seconds, items / seconds);
+        } else {
+            System.out.printf("  ... %d items purged (%.0f items/s)%n", items, items / seconds);
+        }
+    }
+
+    // never serialized, fork/join tasks only inherit Serializable
+    @SuppressWarnings("serial")
+    private class FileTask extends RecursiveAction {
+        private final Path file;
+
+        FileTask(Path file) {
+            this.file = file;
+        }
+
+        @Override
+        protected void compute() {
+            deleteFile(file);
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private class FolderTask extends RecursiveAction {
+        private final Path folder;
+
+        FolderTask(Path folder) {
+            this.folder = folder;
+        }
+
+        @Override
+        protected void compute() {
+            List<FolderTask> subfolders = new ArrayList<>();
+            for (FileWalker.Child child : FileWalker.listDirectory(folder)) {
+                if (child.descend()) {
+                    FolderTask task = new FolderTask(child.entry().path());
+                    task.fork();
+                    subfolders.add(task);
+                } else {
+                    // files and symbolic links (never followed) go right away
+                    deleteFile(child.entry().path());
+                }
+            }
+            for (FolderTask task : subfolders) {
+                task.join();
+            }
+
+            try {
+                Files.delete(folder);
+                foldersDeleted.increment();
+            } catch (IOException e) {
+                foldersFailed.increment();
+                Stats.failed("delete", folder, e.getMessage());
+                System.err.println("Failed to delete: " + folder);
+                System.err.println("  → " + e.getMessage());
+            }
+        }
+    }
+
+    private void deleteFile(Path file) {
+        DaemonCommand.checkCancelled();
+        try {
+            Files.delete(file);
+            filesDeleted.increment();
+        } catch (IOException e) {
+            filesFailed.increment();
+            Stats.failed("delete", file, e.getMessage());
+            System.err.println("Failed to delete: " + file);
+            System.err.println("  → " + e.getMessage());
+        }
+    }
+}
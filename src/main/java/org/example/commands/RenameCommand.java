@@ -6,10 +6,9 @@ import picocli.CommandLine.Parameters;
 import picocli.CommandLine.Command;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -20,7 +19,7 @@ import static org.example.commands.FileFetcher.*;
         mixinStandardHelpOptions = true,
         description = "Batch rename files with patterns"
 )
-public class RenameCommand implements Callable<Integer> {
+public class RenameCommand implements Callable<Integer>, BatchCommand {
 
     @Parameters(index = "0", arity = "1..*", description = "Files or glob patterns to rename")
     private List<Path> targets;
@@ -52,6 +51,21 @@ public class RenameCommand implements Callable<Integer> {
     @Option(names = {"-gsz", "--greaterthansize"}, description = "Filter out files and folders having size greater than the one provided.")
     private double greaterThanSize;
 
+    @Option(names = "--glob", description = "Only include entries whose name matches this glob (patterns with a '/' match the path below the given folder). Can be repeated.")
+    private List<String> globs;
+
+    @Option(names = "--exclude", description = "Skip entries matching this glob, excluded folders are not searched at all. Can be repeated.")
+    private List<String> excludes;
+
+    @Option(names = "--max-depth", description = "Do not look more than this many levels below the given folders.")
+    private int maxDepth;
+
+    @Option(names = {"-t", "--threads"}, description = "Number of threads used to walk folders recursively (default: number of CPU cores).")
+    private int threads = FileWalker.defaultThreads();
+
+    @Option(names = "--dry-run", description = "Only print what would be renamed, without renaming anything.")
+    private boolean dryRun;
+
     @Override
     public Integer call() throws Exception {
         renameFiles(targets, newNamePattern, prefix, suffix,FileType.FILE, sequence);
@@ -65,46 +79,73 @@ public class RenameCommand implements Callable<Integer> {
             System.out.println("The target list is empty. Operation cannot be performed.");
             return;
         }
-        List<Path> files = getFiles(
-                targets, recursive, dateCreated, extension,
-                lessThanSize, greaterThanSize, type
-        );
+        FileFilter filter = new FileFilter(type, dateCreated, extension,
+                lessThanSize, greaterThanSize, globs, excludes, maxDepth);
+        List<FileEntry> files = Stats.timed("rename", "collect", () -> getFiles(targets, recursive, filter, threads));
 
         if (files.isEmpty()){
             System.out.println("The files list is empty. Operation cannot be performed.");
             return;
         }
 
+        renameSelected(files);
+    }
+
+    private void renameSelected(List<FileEntry> files) throws IOException {
         if (hasRenameInstruction()) {
-            int sequenceNumber = 1;
-            for (Path path : files ) {
-                if (Files.isRegularFile(path)){
-                    Path parent = path.getParent();
-                    if (parent == null){
-                        parent = Path.of(".");
-                    }
-                    String newName = giveNewName(parent, path, sequenceNumber);
-                    Path newFilePath = parent.resolve(newName);
-                    if (path.equals(newFilePath)) {
-                        System.out.println("Skipping (same name): " + path);
-                        continue;
-                    }
-                    try {
-                        Files.move(path, newFilePath);
-                        System.out.println("Renamed file: " + path.getFileName() + " to " + newFilePath.getFileName());
-                        sequenceNumber++;
-                    } catch (Exception e){
-                        Files.move(path, newFilePath, StandardCopyOption.REPLACE_EXISTING);
-                        //System.out.println("Failed to rename the file: " + path + ". Error: " + e.getMessage());
+            // work out every new name first, then touch the disk
+            RenamePlan plan = Stats.timed("rename", "plan", () -> {
+                List<Path> paths = new ArrayList<>();
+                List<String> newNames = new ArrayList<>();
+                int sequenceNumber = 1;
+                for (FileEntry file : files ) {
+                    if (file.isRegularFile()){
+                        Path path = file.path();
+                        String newName = giveNewName(path, sequenceNumber);
+                        paths.add(path);
+                        newNames.add(newName);
+                        if (!newName.equals(file.fileName())) {
+                            sequenceNumber++;
+                        }
                     }
                 }
+                return RenamePlan.build(paths, newNames);
+            });
+            if (dryRun) {
+                plan.print();
+                System.out.println("\n" + plan.size() + " file(s) would be renamed.");
+                return;
             }
+
+            Stats.timed("rename", "execute", () -> plan.execute(threads));
+            System.out.printf("%nRenamed %d file(s), %d failed.%n", plan.renamed(), plan.failed());
         }
         else {
             System.out.println("Naming pattern is not provided.");
         }
     }
 
+    @Override
+    public FileFilter filter() {
+        return new FileFilter(FileType.FILE, dateCreated, extension,
+                lessThanSize, greaterThanSize, globs, excludes, maxDepth);
+    }
+
+    @Override
+    public boolean isRecursive() {
+        return recursive;
+    }
+
+    @Override
+    public String describe() {
+        return newNamePattern != null ? "rename to \"" + newNamePattern + "\"" : "rename";
+    }
+
+    @Override
+    public void runBatch(List<FileEntry> files) throws IOException {
+        renameSelected(files);
+    }
+
     private boolean hasRenameInstruction() {
         return
                 (newNamePattern != null && !newNamePattern.trim().isEmpty()) ||
@@ -112,11 +153,11 @@ public class RenameCommand implements Callable<Integer> {
                         (suffix       != null && !suffix.trim().isEmpty());
     }
 
-    // this function checks the existence of a file and returns a new name
-    private String giveNewName(Path parent, Path path, int sequenceNumber){
+    // this function builds the new name of a file. collisions with other files are
+    // handled afterwards by RenamePlan, which knows every name in the folder.
+    String giveNewName(Path path, int sequenceNumber){
         StringBuilder newName = new StringBuilder();
-        String extensionFromOldName = getExtension(path.toString());
-        int counter = 1;
+        String extensionFromOldName = getExtension(path.getFileName().toString());
 
         if (newNamePattern != null) {
             if (sequence && newNamePattern.contains("{seq}")) {
@@ -134,19 +175,9 @@ public class RenameCommand implements Callable<Integer> {
         if (suffix != null)
             newName.append(suffix);
 
-        String tempNewName = extensionFromOldName.isEmpty() ? newName.toString() :newName.toString() + "." + extensionFromOldName;
-        Path finalFilePath = parent.resolve(tempNewName);
-        while (Files.exists(finalFilePath)){
-            System.out.println("OI" + path);
-            String counterString = " ("+ counter + ")";
-            newName.append(counterString);
-            tempNewName = extensionFromOldName.isEmpty() ? newName.toString() :newName.toString() + "." + extensionFromOldName;
-            finalFilePath = parent.resolve(tempNewName);
-            counter++;
-        }
         if (!extensionFromOldName.isEmpty()) {
             newName.append(".").append(extensionFromOldName);
         }
         return newName.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,215 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// a batch rename worked out completely in memory before anything is touched.
+// every folder is listed once, collisions are resolved against those names ("name (1).ext", ...),
+// and files that swap names or rename in a cycle are parked under a temporary name first.
+// running the plan costs one rename per file and never replaces an existing file.
+public class RenamePlan {
+
+    private final Map<Path, List<Rename>> byFolder = new LinkedHashMap<>();
+    private final List<Path> unchanged = new ArrayList<>();
+    private final AtomicInteger renamed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    // one planned rename inside a folder. current changes if the file gets parked under a temporary name.
+    private static class Rename {
+        private final String original;
+        private String current;
+        private String target;
+
+        Rename(String original, String target) {
+            this.original = original;
+            this.current = original;
+            this.target = target;
+        }
+    }
+
+    // files with their wanted new names (before collision handling), in the order they were found
+    public static RenamePlan build(List<Path> files, List<String> wantedNames) throws IOException {
+        RenamePlan plan = new RenamePlan();
+
+        Map<Path, List<Rename>> requested = new LinkedHashMap<>();
+        Set<Path> seen = new HashSet<>();
+        for (int i = 0; i < files.size(); i++) {
+            Path file = files.get(i);
+            if (!seen.add(file)) {
+                continue;  // the same file given twice is still renamed once
+            }
+            String name = file.getFileName().toString();
+            if (name.equals(wantedNames.get(i))) {
+                plan.unchanged.add(file);
+                continue;
+            }
+            Path folder = file.getParent() != null ? file.getParent() : Path.of(".");
+            requested.computeIfAbsent(folder, f -> new ArrayList<>()).add(new Rename(name, wantedNames.get(i)));
+        }
+
+        for (Map.Entry<Path, List<Rename>> folder : requested.entrySet()) {
+            plan.byFolder.put(folder.getKey(), resolveCollisions(folder.getKey(), folder.getValue()));
+        }
+        return plan;
+    }
+
+    // names that stay in the folder plus names already handed out are taken,
+    // names of files that are being renamed away are free
+    private static List<Rename> resolveCollisions(Path folder, List<Rename> renames) throws IOException {
+        Set<String> taken = new HashSet<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(folder)) {
+            for (Path entry : stream) {
+                taken.add(entry.getFileName().toString());
+            }
+        }
+        for (Rename rename : renames) {
+            taken.remove(rename.original);
+        }
+
+        // where the "(n)" search for a wanted name resumes, so a thousand files all asking for
+        // "photo.jpg" cost a thousand lookups and not half a million
+        Map<String, Integer> nextCounter = new HashMap<>();
+        for (Rename rename : renames) {
+            String wanted = rename.target;
+            String candidate = wanted;
+            int counter = nextCounter.getOrDefault(wanted, 1);
+            if (counter > 1 || taken.contains(candidate)) {
+                candidate = withCounter(wanted, counter);
+                while (taken.contains(candidate)) {
+                    candidate = withCounter(wanted, ++counter);
+                }
+                nextCounter.put(wanted, counter + 1);
+            }
+            taken.add(candidate);
+            rename.target = candidate;
+        }
+        return renames;
+    }
+
+    // "photo.jpg" → "photo (1).jpg", "README" → "README (1)"
+    static String withCounter(String name, int counter) {
+        String extension = FileFetcher.getExtension(name);
+        if (extension.isEmpty()) {
+            return name + " (" + counter + ")";
+        }
+        return name.substring(0, name.length() - extension.length() - 1) + " (" + counter + ")." + extension;
+    }
+
+    public void print() {
+        for (Path file : unchanged) {
+            System.out.println("Skipping (same name): " + file);
+        }
+        for (Map.Entry<Path, List<Rename>> folder : byFolder.entrySet()) {
+            for (Rename rename : folder.getValue()) {
+                System.out.println("Would rename: " + folder.getKey().resolve(rename.original) + " to " + rename.target);
+            }
+        }
+    }
+
+    // folders are independent of each other, so they are renamed in parallel
+    public void execute(int threads) {
+        for (Path file : unchanged) {
+            System.out.println("Skipping (same name): " + file);
+        }
+
+        ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<?>> folders = new ArrayList<>();
+            for (Map.Entry<Path, List<Rename>> folder : byFolder.entrySet()) {
+                folders.add(workers.submit(() -> executeFolder(folder.getKey(), folder.getValue())));
+            }
+            for (Future<?> folder : folders) {
+                try {
+                    folder.get();
+                } catch (Exception e) {
+                    System.err.println("Failed to rename files: " + e.getMessage());
+                }
+            }
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    public int renamed() {
+        return renamed.get();
+    }
+
+    public int failed() {
+        return failed.get();
+    }
+
+    public int size() {
+        return byFolder.values().stream().mapToInt(List::size).sum();
+    }
+
+    private void executeFolder(Path folder, List<Rename> renames) {
+        // current name → rename still to do. a rename has to wait while its target is one of these.
+        Map<String, Rename> pending = new LinkedHashMap<>();
+        for (Rename rename : renames) {
+            pending.put(rename.current, rename);
+        }
+
+        while (!pending.isEmpty()) {
+            boolean progress = false;
+            for (Iterator<Rename> it = pending.values().iterator(); it.hasNext(); ) {
+                Rename rename = it.next();
+                if (pending.containsKey(rename.target)) {
+                    continue;
+                }
+                it.remove();
+                progress = true;
+                move(folder, rename);
+            }
+
+            if (!progress) {
+                // only swaps and cycles are left, park one of them to break it open
+                Rename rename = pending.values().iterator().next();
+                String temporary = ".ordo-rename-" + Long.toHexString(ThreadLocalRandom.current().nextLong()) + "-" + rename.original;
+                try {
+                    Files.move(folder.resolve(rename.current), folder.resolve(temporary));
+                    pending.remove(rename.current);
+                    rename.current = temporary;
+                    pending.put(temporary, rename);
+                } catch (IOException e) {
+                    pending.remove(rename.current);
+                    report(folder, rename, e);
+                }
+            }
+        }
+    }
+
+    private void move(Path folder, Rename rename) {
+        try {
+            // no REPLACE_EXISTING: a name that is unexpectedly taken fails instead of losing data
+            Files.move(folder.resolve(rename.current), folder.resolve(rename.target));
+            System.out.println("Renamed file: " + rename.original + " to " + rename.target);
+            renamed.incrementAndGet();
+        } catch (IOException e) {
+            report(folder, rename, e);
+            if (!rename.current.equals(rename.original)) {
+                System.err.println("  → file is kept as " + folder.resolve(rename.current));
+            }
+        }
+    }
+
+    private void report(Path folder, Rename rename, IOException e) {
+        System.err.println("Failed to rename the file: " + folder.resolve(rename.original) + ". Error: " + e.getMessage());
+        failed.incrementAndGet();
+        Stats.failed("rename", folder.resolve(rename.original), e.getMessage());
+    }
+}
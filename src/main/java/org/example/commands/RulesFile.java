@@ -0,0 +1,423 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// reads the rules file of 'ordo run' into plain maps, lists and strings.
+// .json files are full JSON. everything else is read as the small part of YAML a rules file needs:
+// nested mappings and "- " lists by indentation, plain/quoted scalars, [a, b] lists and # comments.
+// anchors, multi-line strings and the like are rejected with an error rather than misread.
+public class RulesFile {
+
+    private RulesFile() {
+    }
+
+    public static Object read(Path file) throws IOException {
+        String text = Files.readString(file, StandardCharsets.UTF_8);
+        String trimmed = text.strip();
+        if (file.toString().toLowerCase().endsWith(".json") || trimmed.startsWith("{") || trimmed.startsWith("[")) {
+            Json json = new Json(text);
+            Object value = json.value();
+            json.end();
+            return value;
+        }
+        return new Yaml(text).document();
+    }
+
+    // ── JSON ────────────────────────────────────────────────────────────────
+
+    private static class Json {
+        private final String text;
+        private int position;
+
+        Json(String text) {
+            this.text = text;
+        }
+
+        Object value() throws IOException {
+            skipSpace();
+            if (position >= text.length()) {
+                throw error("unexpected end of file");
+            }
+            char c = text.charAt(position);
+            if (c == '{') {
+                return object();
+            }
+            if (c == '[') {
+                return array();
+            }
+            if (c == '"') {
+                return string();
+            }
+            if (text.startsWith("true", position)) {
+                position += 4;
+                return Boolean.TRUE;
+            }
+            if (text.startsWith("false", position)) {
+                position += 5;
+                return Boolean.FALSE;
+            }
+            if (text.startsWith("null", position)) {
+                position += 4;
+                return null;
+            }
+            int start = position;
+            while (position < text.length() && "+-0123456789.eE".indexOf(text.charAt(position)) >= 0) {
+                position++;
+            }
+            if (start == position) {
+                throw error("unexpected '" + c + "'");
+            }
+            return text.substring(start, position);
+        }
+
+        void end() throws IOException {
+            skipSpace();
+            if (position < text.length()) {
+                throw error("unexpected content after the end");
+            }
+        }
+
+        private Map<String, Object> object() throws IOException {
+            Map<String, Object> map = new LinkedHashMap<>();
+            position++;
+            skipSpace();
+            if (peek() == '}') {
+                position++;
+                return map;
+            }
+            while (true) {
+                skipSpace();
+                if (peek() != '"') {
+                    throw error("expected a quoted key");
+                }
+                String key = string();
+                skipSpace();
+                expect(':');
+                map.put(key, value());
+                skipSpace();
+                if (peek() == ',') {
+                    position++;
+                } else {
+                    expect('}');
+                    return map;
+                }
+            }
+        }
+
+        private List<Object> array() throws IOException {
+            List<Object> list = new ArrayList<>();
+            position++;
+            skipSpace();
+            if (peek() == ']') {
+                position++;
+                return list;
+            }
+            while (true) {
+                list.add(value());
+                skipSpace();
+                if (peek() == ',') {
+                    position++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        }
+
+        private String string() throws IOException {
+            StringBuilder result = new StringBuilder();
+            position++;
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return result.toString();
+                }
+                if (c != '\\') {
+                    result.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n' -> result.append('\n');
+                    case 't' -> result.append('\t');
+                    case 'r' -> result.append('\r');
+                    case 'b' -> result.append('\b');
+                    case 'f' -> result.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            throw error("broken \\u escape");
+                        }
+                        result.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        position += 4;
+                    }
+                    default -> result.append(escaped);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        private char peek() {
+            return position < text.length() ? text.charAt(position) : '\0';
+        }
+
+        private void expect(char c) throws IOException {
+            if (peek() != c) {
+                throw error("expected '" + c + "'");
+            }
+            position++;
+        }
+
+        private void skipSpace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private IOException error(String message) {
+            int line = 1;
+            for (int i = 0; i < Math.min(position, text.length()); i++) {
+                if (text.charAt(i) == '\n') {
+                    line++;
+                }
+            }
+            return new IOException("line " + line + ": " + message);
+        }
+    }
+
+    // ── YAML (block style subset) ───────────────────────────────────────────
+
+    private static class Yaml {
+        private final List<Line> lines = new ArrayList<>();
+        private int index;
+
+        private static class Line {
+            private final int number;
+            private int indent;
+            private String content;
+
+            Line(int number, int indent, String content) {
+                this.number = number;
+                this.indent = indent;
+                this.content = content;
+            }
+        }
+
+        Yaml(String text) throws IOException {
+            String[] raw = text.split("\r?\n", -1);
+            for (int i = 0; i < raw.length; i++) {
+                String line = stripComment(raw[i]);
+                if (line.isBlank() || line.strip().equals("---")) {
+                    continue;
+                }
+                int indent = 0;
+                while (indent < line.length() && line.charAt(indent) == ' ') {
+                    indent++;
+                }
+                if (indent < line.length() && line.charAt(indent) == '\t') {
+                    throw new IOException("line " + (i + 1) + ": tabs are not allowed for indentation");
+                }
+                lines.add(new Line(i + 1, indent, line.strip()));
+            }
+        }
+
+        Object document() throws IOException {
+            if (lines.isEmpty()) {
+                return null;
+            }
+            Object value = block(lines.get(0).indent);
+            if (index < lines.size()) {
+                throw error(lines.get(index), "unexpected indentation");
+            }
+            return value;
+        }
+
+        private Object block(int indent) throws IOException {
+            Line first = lines.get(index);
+            if (isListItem(first.content)) {
+                return list(indent);
+            }
+            if (keyEnd(first.content) >= 0) {
+                return map(indent);
+            }
+            index++;
+            return scalar(first, first.content);
+        }
+
+        private List<Object> list(int indent) throws IOException {
+            List<Object> list = new ArrayList<>();
+            while (index < lines.size() && lines.get(index).indent == indent && isListItem(lines.get(index).content)) {
+                Line line = lines.get(index);
+                String item = line.content.substring(1).strip();
+                if (item.isEmpty()) {
+                    index++;
+                    list.add(nested(indent));
+                } else if (keyEnd(item) >= 0 || isListItem(item)) {
+                    // "- key: value" starts a mapping (or list) indented to where its first key is
+                    line.indent = indent + line.content.indexOf(item);
+                    line.content = item;
+                    list.add(block(line.indent));
+                } else {
+                    index++;
+                    list.add(scalar(line, item));
+                }
+            }
+            return list;
+        }
+
+        private Map<String, Object> map(int indent) throws IOException {
+            Map<String, Object> map = new LinkedHashMap<>();
+            while (index < lines.size() && lines.get(index).indent == indent) {
+                Line line = lines.get(index);
+                int end = keyEnd(line.content);
+                if (end < 0 || isListItem(line.content)) {
+                    throw error(line, "expected 'key: value'");
+                }
+                String key = unquote(line, line.content.substring(0, end).strip());
+                String value = line.content.substring(end + 1).strip();
+                index++;
+
+                if (!value.isEmpty()) {
+                    map.put(key, scalar(line, value));
+                } else if (index < lines.size() && lines.get(index).indent == indent && isListItem(lines.get(index).content)) {
+                    // "key:" followed by a list at the same indentation
+                    map.put(key, list(indent));
+                } else {
+                    map.put(key, nested(indent));
+                }
+            }
+            return map;
+        }
+
+        // the value below a "key:" or "-" line, or null when nothing is indented under it
+        private Object nested(int indent) throws IOException {
+            if (index >= lines.size() || lines.get(index).indent <= indent) {
+                return null;
+            }
+            return block(lines.get(index).indent);
+        }
+
+        private Object scalar(Line line, String text) throws IOException {
+            if (text.startsWith("[")) {
+                if (!text.endsWith("]")) {
+                    throw error(line, "unterminated [ list");
+                }
+                List<Object> items = new ArrayList<>();
+                for (String item : splitFlow(line, text.substring(1, text.length() - 1))) {
+                    items.add(scalar(line, item));
+                }
+                return items;
+            }
+            if (text.startsWith("{") || text.startsWith("|") || text.startsWith(">")
+                    || text.startsWith("&") || text.startsWith("*") || text.startsWith("!")) {
+                throw error(line, "this YAML feature is not supported in rules files, use plain values or JSON");
+            }
+            // yes/no/true/false stay the text they were written as: nothing in a rules file is a
+            // boolean, and an argument like "-ext no" must reach the command as "no"
+            if (text.equals("null") || text.equals("~")) {
+                return null;
+            }
+            return unquote(line, text);
+        }
+
+        private static List<String> splitFlow(Line line, String text) throws IOException {
+            List<String> items = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            char quote = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == ',') {
+                    items.add(current.toString().strip());
+                    current.setLength(0);
+                    continue;
+                }
+                current.append(c);
+            }
+            if (quote != 0) {
+                throw error(line, "unterminated quote");
+            }
+            if (!current.toString().isBlank() || !items.isEmpty()) {
+                items.add(current.toString().strip());
+            }
+            return items;
+        }
+
+        private static String unquote(Line line, String text) throws IOException {
+            if (text.length() >= 2 && text.startsWith("'") && text.endsWith("'")) {
+                return text.substring(1, text.length() - 1).replace("''", "'");
+            }
+            if (text.length() >= 2 && text.startsWith("\"") && text.endsWith("\"")) {
+                Json json = new Json(text);
+                return (String) json.value();
+            }
+            if (text.startsWith("\"") || text.startsWith("'")) {
+                throw error(line, "unterminated quote");
+            }
+            return text;
+        }
+
+        private static boolean isListItem(String content) {
+            return content.equals("-") || content.startsWith("- ");
+        }
+
+        // position of the ':' ending a key ("key: value" or "key:"), -1 when the line is no mapping entry
+        private static int keyEnd(String content) {
+            char quote = 0;
+            for (int i = 0; i < content.length(); i++) {
+                char c = content.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    if (i > 0) {
+                        return -1;  // a quote in the middle of a plain value, no key before it
+                    }
+                    quote = c;
+                } else if (c == ':' && (i + 1 == content.length() || content.charAt(i + 1) == ' ')) {
+                    return i;
+                } else if (c == ' ' && i + 1 < content.length() && content.charAt(i + 1) == '#') {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        // drops a "# ..." comment that is not inside quotes
+        private static String stripComment(String line) {
+            char quote = 0;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quote != 0) {
+                    if (c == quote) {
+                        quote = 0;
+                    }
+                } else if (c == '"' || c == '\'') {
+                    quote = c;
+                } else if (c == '#' && (i == 0 || Character.isWhitespace(line.charAt(i - 1)))) {
+                    return line.substring(0, i);
+                }
+            }
+            return line;
+        }
+
+        private static IOException error(Line line, String message) {
+            return new IOException("line " + line.number + ": " + message);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package org.example.commands;
+
+import org.example.enumeration.FileType;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.Callable;
+
+@Command(
+        name = "run",
+        mixinStandardHelpOptions = true,
+        description = "Run a rules file: many transfer, delete and rename operations in a single walk"
+)
+public class RunCommand implements Callable<Integer> {
+
+    @Parameters(index = "0", description = "Rules file (.yaml, .yml or .json)")
+    private Path rulesFile;
+
+    @Parameters(index = "1..*", arity = "0..*", description = "Folder(s) to apply the rules to (default: 'root' from the rules file, else the current directory)")
+    private List<Path> folders;
+
+    @Option(names = {"-t", "--threads"}, description = "Number of threads used to walk folders (default: number of CPU cores).")
+    private int threads = FileWalker.defaultThreads();
+
+    @Option(names = {"-y", "--yes"}, description = "Do not ask for confirmation before running the rules.")
+    private boolean yes;
+
+    @Option(names = "--dry-run", description = "Only show which files every rule would get.")
+    private boolean dryRun;
+
+    // one rule: the command its arguments were parsed into, and the files the walk gave it
+    private record Rule(String name, BatchCommand command, FileFilter filter, List<FileEntry> files) {
+    }
+
+    @Override
+    public Integer call() throws Exception {
+        List<Rule> rules;
+        Object document;
+        try {
+            document = RulesFile.read(rulesFile);
+            rules = compile(document);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Error: " + rulesFile + ": " + e.getMessage());
+            return 1;
+        }
+        if (rules.isEmpty()) {
+            System.out.println("The rules file has no rules.");
+            return 0;
+        }
+
+        // one walk for every rule: as deep as the deepest rule needs, each file goes to the first rule it matches
+        boolean recursive = rules.stream().anyMatch(rule -> rule.command().isRecursive());
+        FileFilter everyFile = recursive ? FileFilter.of(FileType.FILE) : FileFilter.of(FileType.FILE).limitDepth(1);
+        long unmatched = Stats.timed("run", "collect", () -> {
+            long count = 0;
+            for (Path root : roots(document)) {
+                count += walk(root, everyFile, rules);
+            }
+            return count;
+        });
+
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            System.out.printf("Rule %d%s: %s %d file(s)%n", i + 1, label(rule), rule.command().describe(), rule.files().size());
+            if (dryRun) {
+                for (FileEntry file : rule.files()) {
+                    System.out.println("  " + file.path());
+                }
+            }
+        }
+        System.out.println("Not matched by any rule: " + unmatched + " file(s)");
+        if (dryRun) {
+            return 0;
+        }
+
+        if (!yes) {
+            boolean confirmed = Stats.timed("run", "confirm", () -> {
+                System.out.print("Continue? (y/N): ");
+                return new Scanner(System.in).nextLine().trim().equalsIgnoreCase("y");
+            });
+            if (!confirmed) {
+                System.out.println("Aborted.");
+                return 0;
+            }
+        }
+
+        for (int i = 0; i < rules.size(); i++) {
+            Rule rule = rules.get(i);
+            if (rule.files().isEmpty()) {
+                continue;
+            }
+            System.out.printf("%n── Rule %d%s: %s ──%n", i + 1, label(rule), rule.command().describe());
+            try {
+                rule.command().runBatch(rule.files());
+            } catch (IOException e) {
+                System.err.println("Rule " + (i + 1) + " failed: " + e.getMessage());
+            }
+        }
+        return 0;
+    }
+
+    // hands every file below root to the first rule that takes it, returns how many no rule took
+    private long walk(Path root, FileFilter everyFile, List<Rule> rules) {
+        Path resolved = root.toAbsolutePath().normalize();
+        FileEntry rootEntry;
+        try {
+            rootEntry = FileEntry.read(resolved);
+        } catch (NoSuchFileException e) {
+            System.err.println("Warning: Path does not exist: " + resolved);
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Warning: Could not read attributes of " + resolved);
+            return 0;
+        }
+
+        long[] unmatched = {0};
+        FileWalker.stream(rootEntry, everyFile, threads, file -> {
+            for (Rule rule : rules) {
+                if (rule.filter().admits(resolved, file)) {
+                    rule.files().add(file);
+                    return;
+                }
+            }
+            unmatched[0]++;
+        });
+        return unmatched[0];
+    }
+
+    // the folders given on the command line, else 'root' from the file, else ".".
+    // like every path in the rules, a relative root is taken from the current directory.
+    private List<Path> roots(Object document) {
+        if (folders != null && !folders.isEmpty()) {
+            return folders;
+        }
+        if (document instanceof Map<?, ?> map && map.get("root") instanceof String root) {
+            return List.of(WorkingDirectory.resolve(Path.of(expandHome(root))));
+        }
+        return List.of(WorkingDirectory.resolve(Path.of(".")));
+    }
+
+    // accepts {"rules": [...]} or just the list. a rule is a command line, or a mapping with
+    // "command" (a command line) or "args" (a list) and an optional "name".
+    private List<Rule> compile(Object document) {
+        Object list = document instanceof Map<?, ?> map ? map.get("rules") : document;
+        if (!(list instanceof List<?> items)) {
+            throw new IllegalArgumentException("expected a list of rules under 'rules'");
+        }
+
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            Object item = items.get(i);
+            String name = null;
+            List<String> args;
+            if (item instanceof String line) {
+                args = tokenize(line);
+            } else if (item instanceof Map<?, ?> map && map.get("command") instanceof String line) {
+                args = tokenize(line);
+                name = map.get("name") instanceof String value ? value : null;
+            } else if (item instanceof Map<?, ?> map && map.get("args") instanceof List<?> values) {
+                args = new ArrayList<>();
+                for (Object value : values) {
+                    args.add(expandHome(String.valueOf(value)));
+                }
+                name = map.get("name") instanceof String value ? value : null;
+            } else {
+                throw new IllegalArgumentException("rule " + (i + 1) + " needs a 'command' or 'args'");
+            }
+            rules.add(parse(i + 1, name, args));
+        }
+        return rules;
+    }
+
+    // parses the arguments into the same command object the command line would get
+    private static Rule parse(int number, String name, List<String> args) {
+        if (args.isEmpty()) {
+            throw new IllegalArgumentException("rule " + number + " is empty");
+        }
+        BatchCommand command = switch (args.get(0)) {
+            case "transfer" -> new TransferCommand();
+            case "delete" -> new DeleteCommand();
+            case "rename" -> new RenameCommand();
+            default -> throw new IllegalArgumentException("rule " + number + ": unknown command '" + args.get(0)
+                    + "' (rules can use transfer, delete and rename)");
+        };
+
+        // rules always work on the folders of the run, the "." only satisfies commands that require a path
+        List<String> options = new ArrayList<>(args.subList(1, args.size()));
+        options.add(".");
+        try {
+            CommandLine.ParseResult result = WorkingDirectory.configure(new CommandLine(command))
+                    .setCaseInsensitiveEnumValuesAllowed(true)
+                    .parseArgs(options.toArray(String[]::new));
+            if (result.matchedPositionals().size() > 1) {
+                System.err.println("Warning: rule " + number + ": paths are ignored, rules apply to the folders of the run");
+            }
+        } catch (CommandLine.ParameterException e) {
+            throw new IllegalArgumentException("rule " + number + ": " + e.getMessage());
+        }
+
+        FileFilter filter = command.isRecursive() ? command.filter() : command.filter().limitDepth(1);
+        return new Rule(name, command, filter, new ArrayList<>());
+    }
+
+    // splits a command line like a shell would: whitespace separates, quotes group
+    private static List<String> tokenize(String line) {
+        List<String> tokens = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean inToken = false;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+                inToken = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens.add(expandHome(current.toString()));
+                    current.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                current.append(c);
+                inToken = true;
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("unterminated quote in '" + line + "'");
+        }
+        if (inToken) {
+            tokens.add(expandHome(current.toString()));
+        }
+        return tokens;
+    }
+
+    // there is no shell to expand "~" in a rules file
+    private static String expandHome(String value) {
+        if (value.equals("~") || value.startsWith("~/")) {
+            return System.getProperty("user.home") + value.substring(1);
+        }
+        return value;
+    }
+
+    private static String label(Rule rule) {
+        return rule.name() != null ? " (" + rule.name() + ")" : "";
+    }
+}
@@ -0,0 +1,323 @@
+package org.example.commands;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+import org.example.enumeration.StatsFormat;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// where a run spent its time and what it touched, for --stats.
+// the counters are always on: a LongAdder increment next to a syscall costs nothing measurable,
+// and it means a JFR recording (java -XX:StartFlightRecording ...) sees the same numbers
+// without --stats. every counted point is also a JFR event in the "Ordo" category.
+public final class Stats {
+
+    private static volatile long start = System.nanoTime();
+
+    private static final LongAdder directoriesVisited = new LongAdder();
+    private static final LongAdder filesStated = new LongAdder();
+    private static final LongAdder bytesCopied = new LongAdder();
+    private static final LongAdder failures = new LongAdder();
+
+    // "command phase" → time spent, in the order the phases first ran. a --watch run repeats its phases.
+    private static final Map<String, PhaseTotal> phases = new LinkedHashMap<>();
+
+    private static final AtomicBoolean reported = new AtomicBoolean();
+
+    private Stats() {
+    }
+
+    // back to zero, the daemon runs many commands in one process
+    static void reset() {
+        start = System.nanoTime();
+        directoriesVisited.reset();
+        filesStated.reset();
+        bytesCopied.reset();
+        failures.reset();
+        synchronized (phases) {
+            phases.clear();
+        }
+        reported.set(false);
+    }
+
+    // ── counting points ─────────────────────────────────────────────────────
+
+    static void stated() {
+        filesStated.increment();
+    }
+
+    static void copied(long bytes) {
+        bytesCopied.add(bytes);
+    }
+
+    // a failed filesystem call, counted and recorded with what was being done
+    static void failed(String operation, Path path, String message) {
+        failures.increment();
+        FailureEvent event = new FailureEvent();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.path = String.valueOf(path);
+            event.message = message;
+            event.commit();
+        }
+    }
+
+    // started before a directory is read, finished with how many entries it had
+    static DirectoryEvent startDirectory() {
+        DirectoryEvent event = new DirectoryEvent();
+        event.begin();
+        return event;
+    }
+
+    static void finishDirectory(DirectoryEvent event, Path directory, int entries) {
+        directoriesVisited.increment();
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = directory.toString();
+            event.entries = entries;
+            event.commit();
+        }
+    }
+
+    static TransferEvent startTransfer() {
+        TransferEvent event = new TransferEvent();
+        event.begin();
+        return event;
+    }
+
+    static void finishTransfer(TransferEvent event, Path source, Path destination, long bytes, boolean moved) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = source.toString();
+            event.destination = destination.toString();
+            event.bytes = bytes;
+            event.moved = moved;
+            event.commit();
+        }
+    }
+
+    // times one phase of a command: Stats.timed("delete", "collect", () -> ...)
+    static Phase phase(String command, String name) {
+        return new Phase(command, name);
+    }
+
+    // the body of a timed phase, it may throw what the command around it throws
+    interface Timed<T, E extends Exception> {
+        T run() throws E;
+    }
+
+    interface TimedVoid<E extends Exception> {
+        void run() throws E;
+    }
+
+    static <T, E extends Exception> T timed(String command, String name, Timed<T, E> body) throws E {
+        Phase phase = phase(command, name);
+        try {
+            return body.run();
+        } finally {
+            phase.close();
+        }
+    }
+
+    static <E extends Exception> void timed(String command, String name, TimedVoid<E> body) throws E {
+        Phase phase = phase(command, name);
+        try {
+            body.run();
+        } finally {
+            phase.close();
+        }
+    }
+
+    // adds time measured by the caller, for work spread over many small pieces (printing every item)
+    static void time(String command, String name, long nanos) {
+        synchronized (phases) {
+            phases.computeIfAbsent(command + " " + name, key -> new PhaseTotal(command, name)).add(nanos);
+        }
+    }
+
+    static final class Phase implements AutoCloseable {
+        private final String command;
+        private final String name;
+        private final long start = System.nanoTime();
+        private final PhaseEvent event = new PhaseEvent();
+
+        private Phase(String command, String name) {
+            this.command = command;
+            this.name = name;
+            event.begin();
+        }
+
+        @Override
+        public void close() {
+            time(command, name, System.nanoTime() - start);
+            event.end();
+            if (event.shouldCommit()) {
+                event.command = command;
+                event.phase = name;
+                event.commit();
+            }
+        }
+    }
+
+    private static final class PhaseTotal {
+        private final String command;
+        private final String name;
+        private long nanos;
+        private int runs;
+
+        PhaseTotal(String command, String name) {
+            this.command = command;
+            this.name = name;
+        }
+
+        void add(long elapsed) {
+            nanos += elapsed;
+            runs++;
+        }
+    }
+
+    // ── report ──────────────────────────────────────────────────────────────
+
+    // prints the summary once (to stderr, so piped output stays clean) and records it for JFR.
+    // called from Main after the command, and from a shutdown hook when a --watch run is stopped.
+    public static void report(StatsFormat format) {
+        if (!reported.compareAndSet(false, true)) {
+            return;
+        }
+
+        SummaryEvent summary = new SummaryEvent();
+        if (summary.shouldCommit()) {
+            summary.directoriesVisited = directoriesVisited.sum();
+            summary.filesStated = filesStated.sum();
+            summary.bytesCopied = bytesCopied.sum();
+            summary.failures = failures.sum();
+            summary.commit();
+        }
+
+        if (format == null) {
+            return;
+        }
+        List<PhaseTotal> totals;
+        synchronized (phases) {
+            totals = new ArrayList<>(phases.values());
+        }
+        double totalMillis = (System.nanoTime() - start) / 1e6;
+        PrintStream out = System.err;
+
+        if (format == StatsFormat.JSON) {
+            StringBuilder json = new StringBuilder("{");
+            json.append("\"directoriesVisited\":").append(directoriesVisited.sum());
+            json.append(",\"filesStated\":").append(filesStated.sum());
+            json.append(",\"bytesCopied\":").append(bytesCopied.sum());
+            json.append(",\"failures\":").append(failures.sum());
+            json.append(",\"phases\":[");
+            for (int i = 0; i < totals.size(); i++) {
+                PhaseTotal phase = totals.get(i);
+                json.append(i == 0 ? "" : ",")
+                        .append("{\"command\":\"").append(phase.command)
+                        .append("\",\"phase\":\"").append(phase.name)
+                        .append("\",\"runs\":").append(phase.runs)
+                        .append(",\"millis\":").append(String.format(Locale.ROOT, "%.3f", phase.nanos / 1e6))
+                        .append('}');
+            }
+            json.append("],\"totalMillis\":").append(String.format(Locale.ROOT, "%.3f", totalMillis)).append('}');
+            out.println(json);
+            return;
+        }
+
+        out.println("\n───── STATS ─────");
+        out.printf("Directories visited: %d%n", directoriesVisited.sum());
+        out.printf("Entries stat'ed:     %d%n", filesStated.sum());
+        out.printf("Bytes copied:        %s%n", FileFetcher.formatSize(bytesCopied.sum()));
+        out.printf("Failed calls:        %d%n", failures.sum());
+        for (PhaseTotal phase : totals) {
+            out.printf("  %-20s %10.1f ms%s%n", phase.command + " " + phase.name, phase.nanos / 1e6,
+                    phase.runs > 1 ? " (" + phase.runs + " runs)" : "");
+        }
+        out.printf("Total:               %.1f ms%n", totalMillis);
+        out.println("─────────────────");
+    }
+
+    // ── JFR events ──────────────────────────────────────────────────────────
+
+    @Name("org.example.ordo.Phase")
+    @Label("Ordo Phase")
+    @Category("Ordo")
+    @Description("One phase of a command: collecting files, waiting for confirmation, doing the work")
+    @StackTrace(false)
+    static class PhaseEvent extends Event {
+        @Label("Command")
+        String command;
+        @Label("Phase")
+        String phase;
+    }
+
+    // only slow listings by default, a big tree has millions of fast ones
+    @Name("org.example.ordo.Directory")
+    @Label("Ordo Directory Listing")
+    @Category("Ordo")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static class DirectoryEvent extends Event {
+        @Label("Path")
+        String path;
+        @Label("Entries")
+        int entries;
+    }
+
+    @Name("org.example.ordo.Transfer")
+    @Label("Ordo File Transfer")
+    @Category("Ordo")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static class TransferEvent extends Event {
+        @Label("Source")
+        String source;
+        @Label("Destination")
+        String destination;
+        @Label("Bytes")
+        long bytes;
+        @Label("Moved")
+        boolean moved;
+    }
+
+    @Name("org.example.ordo.Failure")
+    @Label("Ordo Failed Call")
+    @Category("Ordo")
+    static class FailureEvent extends Event {
+        @Label("Operation")
+        String operation;
+        @Label("Path")
+        String path;
+        @Label("Message")
+        String message;
+    }
+
+    @Name("org.example.ordo.Summary")
+    @Label("Ordo Run Summary")
+    @Category("Ordo")
+    @StackTrace(false)
+    static class SummaryEvent extends Event {
+        @Label("Directories Visited")
+        long directoriesVisited;
+        @Label("Entries Stat'ed")
+        long filesStated;
+        @Label("Bytes Copied")
+        long bytesCopied;
+        @Label("Failed Calls")
+        long failures;
+    }
+}
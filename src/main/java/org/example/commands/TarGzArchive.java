@@ -0,0 +1,222 @@
+package org.example.commands;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+// writes a tar.gz: one gzip member around one deflate stream of the whole tar, like pigz does.
+// the tar bytes are collected into blocks on the reading thread, every full block goes to
+// ParallelDeflater and continues the stream of the block before it. gzip has no per-file
+// method, so a file that is compressed already goes into blocks of its own at level 0
+// (deflate's stored blocks) instead of being compressed again.
+final class TarGzArchive implements Archive {
+
+    private static final int RECORD = 512;
+    // the biggest size a ustar header holds, 11 octal digits
+    private static final long MAX_SIZE = 077777777777L;
+
+    private final ParallelDeflater deflater;
+    private final int level;
+
+    private final CRC32 crc = new CRC32();
+    private long length;
+    // the block being filled, and the level it gets compressed at
+    private byte[] block = new byte[ParallelDeflater.BLOCK_SIZE];
+    private int filled;
+    private int blockLevel;
+    private byte[] dictionary;
+
+    TarGzArchive(FileChannel out, int level, int jobs) {
+        this.deflater = new ParallelDeflater(out, jobs);
+        this.level = level;
+        this.blockLevel = level;
+        // magic, deflate, no flags, no time, no extra flags, unix
+        ByteBuffer header = ByteBuffer.wrap(new byte[]{0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, 3});
+        deflater.then(channel -> ParallelDeflater.write(channel, header));
+    }
+
+    @Override
+    public void add(FileEntry file, String name, boolean store) throws IOException {
+        long size = file.size();
+        try (FileChannel in = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            writeHeaders(name, size, Archive.permissions(file.path()), file.attributes().lastModifiedTime().toMillis() / 1000);
+
+            useLevel(store ? 0 : level);
+            IOException failure = null;
+            long done = 0;
+            while (done < size) {
+                int count = (int) Math.min(block.length - filled, size - done);
+                if (failure == null) {
+                    failure = Archive.read(in, done, block, filled, count);
+                }
+                crc.update(block, filled, count);
+                filled += count;
+                done += count;
+                length += count;
+                if (filled == block.length) {
+                    flush(false);
+                }
+            }
+            append(new byte[padding(size)]);
+            useLevel(level);
+            if (failure != null) {
+                throw new IncompleteEntry(failure);
+            }
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        // the end of a tar is two empty records
+        append(new byte[2 * RECORD]);
+        flush(true);
+        long checksum = crc.getValue();
+        long size = length;
+        deflater.then(channel -> {
+            ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            trailer.putInt((int) checksum).putInt((int) size);
+            ParallelDeflater.write(channel, trailer.flip());
+        });
+        deflater.finish();
+    }
+
+    @Override
+    public void close() {
+        deflater.abort();
+    }
+
+    // the ustar header, after a pax header when the name or size does not fit into it
+    private void writeHeaders(String name, long size, int mode, long modified) {
+        byte[] path = name.getBytes(StandardCharsets.UTF_8);
+        String prefix = "";
+        String shortName = name;
+        boolean ascii = path.length == name.length();
+        StringBuilder pax = new StringBuilder();
+
+        if (ascii && path.length > 100) {
+            // ustar can keep the folders apart: prefix/name, up to 155 + 100 bytes
+            int slash = name.lastIndexOf('/', 155);
+            if (slash > 0 && name.length() - slash - 1 <= 100) {
+                prefix = name.substring(0, slash);
+                shortName = name.substring(slash + 1);
+            }
+        }
+        if (!ascii || shortName.length() > 100) {
+            paxRecord(pax, "path", name);
+            prefix = "";
+            shortName = asciiName(name);
+        }
+        if (size > MAX_SIZE) {
+            paxRecord(pax, "size", Long.toString(size));
+        }
+
+        if (!pax.isEmpty()) {
+            byte[] records = pax.toString().getBytes(StandardCharsets.UTF_8);
+            append(header(asciiName("PaxHeaders/" + shortName), 0644, records.length, modified, 'x', ""));
+            append(records);
+            append(new byte[padding(records.length)]);
+        }
+        append(header(shortName, mode, Math.min(size, MAX_SIZE), modified, '0', prefix));
+    }
+
+    private static byte[] header(String name, int mode, long size, long modified, char type, String prefix) {
+        byte[] header = new byte[RECORD];
+        put(header, 0, 100, name);
+        put(header, 100, 8, octal(mode, 7));
+        put(header, 108, 8, octal(0, 7));                  // uid
+        put(header, 116, 8, octal(0, 7));                  // gid
+        put(header, 124, 12, octal(size, 11));
+        put(header, 136, 12, octal(Math.max(0, Math.min(modified, MAX_SIZE)), 11));
+        header[156] = (byte) type;
+        put(header, 257, 6, "ustar");
+        put(header, 263, 2, "00");
+        put(header, 345, 155, prefix);
+
+        // the checksum is taken with its own field as spaces
+        for (int i = 148; i < 156; i++) {
+            header[i] = ' ';
+        }
+        int checksum = 0;
+        for (byte b : header) {
+            checksum += b & 0xff;
+        }
+        put(header, 148, 8, octal(checksum, 6));
+        header[154] = 0;
+        return header;
+    }
+
+    // "<length> key=value\n", where the length counts itself
+    private static void paxRecord(StringBuilder pax, String key, String value) {
+        int content = key.length() + value.getBytes(StandardCharsets.UTF_8).length + 3;
+        int total = content + Integer.toString(content).length();
+        if (Integer.toString(total).length() > Integer.toString(content).length()) {
+            total++;
+        }
+        pax.append(total).append(' ').append(key).append('=').append(value).append('\n');
+    }
+
+    // what old tars without pax support show: the name cut to 100 ascii characters
+    private static String asciiName(String name) {
+        StringBuilder ascii = new StringBuilder(100);
+        for (int i = name.length() - 1; i >= 0 && ascii.length() < 100; i--) {
+            char c = name.charAt(i);
+            ascii.append(c < 0x80 ? c : '_');
+        }
+        return ascii.reverse().toString();
+    }
+
+    private static String octal(long value, int digits) {
+        String octal = Long.toOctalString(value);
+        return "0".repeat(Math.max(0, digits - octal.length())) + octal;
+    }
+
+    private static void put(byte[] header, int offset, int size, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, Math.min(size, bytes.length));
+    }
+
+    private static int padding(long size) {
+        return (int) ((RECORD - size % RECORD) % RECORD);
+    }
+
+    private void append(byte[] data) {
+        crc.update(data);
+        length += data.length;
+        int offset = 0;
+        while (offset < data.length) {
+            int count = Math.min(block.length - filled, data.length - offset);
+            System.arraycopy(data, offset, block, filled, count);
+            filled += count;
+            offset += count;
+            if (filled == block.length) {
+                flush(false);
+            }
+        }
+    }
+
+    // data of another level starts a new block
+    private void useLevel(int next) {
+        if (next != blockLevel) {
+            if (filled > 0) {
+                flush(false);
+            }
+            blockLevel = next;
+        }
+    }
+
+    // hands the block to the compressors and queues writing the result
+    private void flush(boolean last) {
+        Future<ByteBuffer> compressed = deflater.deflate(block, filled, dictionary, last, blockLevel);
+        deflater.then(channel -> ParallelDeflater.write(channel, ParallelDeflater.await(compressed)));
+        if (filled > 0) {
+            dictionary = ParallelDeflater.dictionary(block, filled);
+        }
+        block = new byte[ParallelDeflater.BLOCK_SIZE];
+        filled = 0;
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.commands;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// keeps the n greatest items offered (by the given order) and nothing else, so picking the top n
+// of millions of entries needs memory for n. the least of the kept items sits on top of the heap
+// and is the only one a newcomer has to beat.
+class TopN<T> {
+    private final int limit;
+    private final Comparator<? super T> order;
+    private final PriorityQueue<T> heap;
+
+    TopN(int limit, Comparator<? super T> order) {
+        this.limit = Math.max(1, limit);
+        this.order = order;
+        this.heap = new PriorityQueue<>(this.limit + 1, order);
+    }
+
+    void offer(T item) {
+        if (heap.size() < limit) {
+            heap.add(item);
+        } else if (order.compare(item, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    // the kept items in no particular order
+    Collection<T> items() {
+        return heap;
+    }
+
+    // the kept items, greatest first
+    List<T> sorted() {
+        List<T> result = new ArrayList<>(heap);
+        result.sort(order.reversed());
+        return result;
+    }
+}
@@ -1,17 +1,31 @@
 package org.example.commands;
 
+import org.example.enumeration.ChecksumAlgorithm;
 import org.example.enumeration.FileTransfer;
 import org.example.enumeration.FileType;
+import org.example.enumeration.LinkMode;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.regex.PatternSyntaxException;
 
 import static org.example.commands.FileFetcher.*;
 
@@ -20,7 +34,7 @@ import static org.example.commands.FileFetcher.*;
         mixinStandardHelpOptions = true,
         description = "Batch transfer files with certain conditions"
 )
-public class TransferCommand implements Callable<Integer> {
+public class TransferCommand implements Callable<Integer>, BatchCommand {
 
     @Parameters(index = "0", arity = "1..*", description = "Files or glob patterns to rename")
     private List<Path> from = List.of(Path.of("."));
@@ -32,7 +46,7 @@ public class TransferCommand implements Callable<Integer> {
     private boolean move;
 
     @Option(names = {"-c", "--copy"}, description = "Copy files (keep source)")
-    private boolean copy = true;
+    private boolean copy;
 
     @Option(names = {"-r", "--recursive"}, description = "Recursive means that any folder and subsequent subfolders will be affected.")
     private boolean recursive;
@@ -49,6 +63,52 @@ public class TransferCommand implements Callable<Integer> {
     @Option(names = {"-gsz", "--greaterthansize"}, description = "Filter out files and folders having size greater than the one provided.")
     private double greaterThanSize;
 
+    @Option(names = "--glob", description = "Only include entries whose name matches this glob (patterns with a '/' match the path below the given folder). Can be repeated.")
+    private List<String> globs;
+
+    @Option(names = "--exclude", description = "Skip entries matching this glob, excluded folders are not searched at all. Can be repeated.")
+    private List<String> excludes;
+
+    @Option(names = "--max-depth", description = "Do not look more than this many levels below the given folders.")
+    private int maxDepth;
+
+    @Option(names = "--contains", description = "Only include files containing this text. Searched after the other filters, in parallel (-t threads), up to the first match.")
+    private String contains;
+
+    @Option(names = "--regex", description = "Treat --contains as a regular expression, matched within a line.")
+    private boolean regex;
+
+    @Option(names = {"-t", "--threads"}, description = "Number of threads used to walk folders recursively (default: number of CPU cores).")
+    private int threads = FileWalker.defaultThreads();
+
+    @Option(names = {"-j", "--jobs"}, description = "Number of files transferred in parallel (default: 4).")
+    private int jobs = TransferEngine.defaultJobs();
+
+    @Option(names = "--chunk-threshold", description = "Files at least this big (in MB) are copied as parallel byte ranges (default: 256).")
+    private long chunkThresholdMB = TransferEngine.defaultChunkThresholdMB();
+
+    @Option(names = "--watch", description = "Keep running and transfer new or modified files matching the filters as they appear.")
+    private boolean watch;
+
+    @Option(names = "--sync", description = "Keep the folder structure below the given folders and only copy files that are missing in the destination or differ in size or modification time. Older copies are replaced.")
+    private boolean sync;
+
+    @Option(names = "--checksum", description = "With --sync, compare the contents of files with the same size instead of their modification times.")
+    private boolean checksum;
+
+    @Option(names = "--verify", arity = "0..1", fallbackValue = "CRC32C",
+            description = "Hash every file while it is copied, read the copy back and compare: crc32c (default), xxhash or sha256. A moved file is only deleted once its copy checked out.")
+    private ChecksumAlgorithm verify;
+
+    @Option(names = "--link", description = "Link the files into the destination instead of copying them: hard or symbolic. Costs no space and no time per byte. Files on another volume than the destination are copied.")
+    private LinkMode link;
+
+    @Option(names = "--resume", description = "Keep a journal of this transfer in ~/.ordo/journal. Running the same transfer again after it was interrupted skips the files it finished and checks the ones it was writing.")
+    private boolean resume;
+
+    @Option(names = "--delete", description = "With --sync, permanently delete files from the destination that are no longer in the source (only files matching the filters).")
+    private boolean delete;
+
     @Override
     public Integer call() throws Exception {
         transferFiles();
@@ -56,21 +116,12 @@ public class TransferCommand implements Callable<Integer> {
     }
 
     private void transferFiles() throws IOException {
-        // Get matching source files
-        List<Path> files = getFiles(
-                from, recursive, dateCreated, extension,
-                lessThanSize, greaterThanSize, FileType.FILE
-        );
-
-        if (files.isEmpty()) {
-            System.out.println("No files matched your filters.");
-            return;
-        }
-
         // Validate destination
         if (!Files.exists(destination)) {
-            System.out.print("Destination folder does not exist. Create it? (y/N): ");
-            String response = new java.util.Scanner(System.in).nextLine().trim();
+            String response = Stats.timed("transfer", "confirm", () -> {
+                System.out.print("Destination folder does not exist. Create it? (y/N): ");
+                return new java.util.Scanner(System.in).nextLine().trim();
+            });
             if (!response.equalsIgnoreCase("y")) {
                 System.out.println("Operation aborted.");
                 return;
@@ -92,37 +143,309 @@ public class TransferCommand implements Callable<Integer> {
             return;
         }
 
+        if (sync && move) {
+            System.out.println("Error: --sync only copies, it cannot be combined with --move.");
+            return;
+        }
+        if ((checksum || delete) && !sync) {
+            System.out.println("Error: --checksum and --delete only work together with --sync.");
+            return;
+        }
+        if (delete && watch) {
+            System.out.println("Error: --delete cannot be combined with --watch.");
+            return;
+        }
+        if (link != null && (move || sync)) {
+            System.out.println("Error: --link cannot be combined with --move or --sync.");
+            return;
+        }
+        if (resume && (sync || watch)) {
+            System.out.println("Error: --resume cannot be combined with --sync (which skips finished files by itself) or --watch.");
+            return;
+        }
+
+        ContentMatcher content;
+        try {
+            content = contains != null ? new ContentMatcher(contains, regex) : null;
+        } catch (PatternSyntaxException e) {
+            System.out.println("Error: Invalid --contains pattern: " + e.getDescription());
+            return;
+        }
+
         String action = isMove ? "Moved" : "Copied";
+        Path resolvedDestination = destination.toAbsolutePath().normalize();
+        FileTransfer mode = isMove ? FileTransfer.CUT : FileTransfer.COPY;
+
+        // Get matching source files, each one is handed to the workers as soon as the walk finds it.
+        // the copies already run while collecting, "execute" is only what is left once the walk is done.
+        TransferJournal journal = resume ? TransferJournal.open(from, resolvedDestination, mode.name()) : null;
+        if (journal != null && journal.finishedBefore() + journal.unfinishedBefore() > 0) {
+            System.out.printf("Resuming: %d file(s) were finished before, %d are checked again.%n",
+                    journal.finishedBefore(), journal.unfinishedBefore());
+        }
+        AtomicInteger finishedBefore = new AtomicInteger();
+        boolean complete = false;
 
-        int success = 0;
-        int failed = 0;
+        try (TransferEngine engine = new TransferEngine(resolvedDestination, mode, jobs, chunkThresholdMB * 1024 * 1024)) {
+            FileFilter filter = filter();
+            engine.setChecksum(checksum);
+            engine.setVerify(verify);
+            engine.setJournal(journal);
+            engine.setLink(link);
+            // a sync puts every file at its path below the folder it was found in
+            List<Path> roots = sync ? syncRoots() : List.of();
+            Set<Path> seen = delete ? ConcurrentHashMap.newKeySet() : null;
+            // a watched file that changes after it was transferred would become "name (1)", "name (2)", ...
+            Set<Path> transferred = watch && !sync ? ConcurrentHashMap.newKeySet() : null;
+            Consumer<FileEntry> submit = file -> {
+                // the destination may sit inside a source folder, never pick up what we just wrote
+                if (file.path().startsWith(resolvedDestination)) {
+                    return;
+                }
+                if (journal != null && journal.isDone(file)) {
+                    finishedBefore.incrementAndGet();
+                    return;
+                }
+                if (!sync) {
+                    if (transferred != null && !transferred.add(file.path())) {
+                        System.err.println("Warning: " + file.path() + " changed after it was transferred, it is not copied again (--sync keeps copies up to date).");
+                        return;
+                    }
+                    engine.submit(file);
+                    return;
+                }
+                engine.submitSync(file, relativePath(roots, file.path()));
+            };
 
-        for (Path source : files) {
-            Path destFile = destination.resolve(source.getFileName());
+            // with --contains the files that passed the other filters are searched first, still in walk order
+            try (ContentScan scan = content != null ? new ContentScan(content, threads, submit) : null) {
+                Consumer<FileEntry> found = scan != null ? scan : submit;
+                // --delete keeps every copy whose source still exists, also one that no longer
+                // contains the text or could not be searched, so sources count before the scan
+                Consumer<FileEntry> walked = seen == null ? found : file -> {
+                    if (!file.path().startsWith(resolvedDestination)) {
+                        seen.add(relativePath(roots, file.path()));
+                    }
+                    found.accept(file);
+                };
+                Stats.timed("transfer", "collect", () -> {
+                    streamFiles(from, recursive, filter, threads, walked);
+                    if (scan != null) {
+                        scan.finish();
+                    }
+                });
+            }
 
-            // Handle collision
-            int counter = 1;
-            while (Files.exists(destFile)) {
-                String name = source.getFileName().toString();
-                String newName = name + " (" + counter + ")";
-                destFile = destination.resolve(newName);
-                counter++;
+            if (watch) {
+                watchSources(submit, engine, filter, content);
             }
+            Stats.timed("transfer", "execute", engine::finish);
+            // a journal is kept until a run gets through without failures, the next --resume retries them
+            complete = engine.failed() == 0;
 
-            try {
-                if (isMove) {
-                    Files.move(source, destFile);
-                } else {
-                    Files.copy(source, destFile);
+            if (delete) {
+                deleteExtraneous(resolvedDestination, roots, seen, filter, engine.failed());
+            }
+
+            if (engine.succeeded() == 0 && engine.failed() == 0 && engine.unchanged() == 0 && finishedBefore.get() == 0) {
+                System.out.println("No files matched your filters.");
+                return;
+            }
+
+            String verified = verify != null ? " (" + verify.name().toLowerCase() + " verified)" : "";
+            if (sync) {
+                System.out.printf("%nSynced: %d copied, %d unchanged, %d failed%s.%n", engine.succeeded(), engine.unchanged(), engine.failed(), verified);
+            } else if (link != null) {
+                System.out.printf("%nLinked: %d succeeded (%d copied, on another volume), %d failed.%n",
+                        engine.succeeded(), engine.succeeded() - engine.linked(), engine.failed());
+            } else {
+                System.out.printf("%n%s: %d succeeded, %d failed%s.%n", action, engine.succeeded(), engine.failed(), verified);
+            }
+            if (finishedBefore.get() > 0) {
+                System.out.printf("Skipped %d file(s) the interrupted run had finished.%n", finishedBefore.get());
+            }
+        } finally {
+            if (journal != null) {
+                journal.finish(complete);
+            }
+        }
+    }
+
+    // the folder every source mirrors into the destination: a folder is its own root, single
+    // files and glob patterns ("photos/*.jpg") use the folder they are in
+    private List<Path> syncRoots() {
+        List<Path> roots = new ArrayList<>();
+        for (Path target : from) {
+            Path root = target.toAbsolutePath().normalize();
+            while (root.getParent() != null && !Files.isDirectory(root)) {
+                root = root.getParent();
+            }
+            roots.add(root);
+        }
+        // nested roots: the deepest one containing a file wins
+        roots.sort(Comparator.comparingInt(Path::getNameCount).reversed());
+        return roots;
+    }
+
+    private static Path relativePath(List<Path> roots, Path file) {
+        for (Path root : roots) {
+            if (file.startsWith(root) && !file.equals(root)) {
+                return root.relativize(file);
+            }
+        }
+        return file.getFileName();
+    }
+
+    // the destination files (matching the filters) no source file was synced to. a source that
+    // could not be read looks exactly like a deleted one, so any failure skips this step.
+    private void deleteExtraneous(Path resolvedDestination, List<Path> roots, Set<Path> seen,
+                                  FileFilter filter, int failures) throws IOException {
+        if (failures > 0) {
+            System.err.println("Warning: Some files failed to copy, nothing is deleted from the destination.");
+            return;
+        }
+        for (Path root : roots) {
+            if (!Files.isDirectory(root)) {
+                System.err.println("Warning: Source folder does not exist: " + root + ", nothing is deleted from the destination.");
+                return;
+            }
+        }
+
+        List<FileEntry> extraneous = new ArrayList<>();
+        Stats.timed("transfer", "collect", () -> {
+            for (FileEntry file : getFiles(List.of(resolvedDestination), recursive, filter, threads)) {
+                Path relative = resolvedDestination.relativize(file.path());
+                // a source folder inside the destination is never deleted
+                boolean insideSource = roots.stream().anyMatch(root -> file.path().startsWith(root));
+                if (!insideSource && !seen.contains(relative)) {
+                    extraneous.add(file);
                 }
-                System.out.printf("%s: %s → %s%n", action, source.getFileName(), destFile.getFileName());
-                success++;
+            }
+        });
+        if (extraneous.isEmpty()) {
+            return;
+        }
+
+        for (FileEntry file : extraneous) {
+            System.out.println("  " + resolvedDestination.relativize(file.path()));
+        }
+        String response = Stats.timed("transfer", "confirm", () -> {
+            System.out.printf("About to permanently delete %d file(s) from %s that are no longer in the source.%n",
+                    extraneous.size(), resolvedDestination);
+            System.out.print("Continue? (y/N): ");
+            return new java.util.Scanner(System.in).nextLine().trim();
+        });
+        if (!response.equalsIgnoreCase("y")) {
+            System.out.println("Nothing deleted.");
+            return;
+        }
+
+        Stats.timed("transfer", "delete", () -> {
+            new PurgeEngine(threads).purge(extraneous);
+            removeEmptyFolders(resolvedDestination, roots, extraneous);
+        });
+    }
+
+    // folders emptied by the deletions go too, unless the source still has them
+    private static void removeEmptyFolders(Path resolvedDestination, List<Path> roots, List<FileEntry> deleted) {
+        TreeSet<Path> folders = new TreeSet<>(Comparator.comparingInt(Path::getNameCount).reversed().thenComparing(Comparator.naturalOrder()));
+        for (FileEntry file : deleted) {
+            folders.add(file.path().getParent());
+        }
+        while (!folders.isEmpty()) {
+            Path folder = folders.pollFirst();
+            if (!folder.startsWith(resolvedDestination) || folder.equals(resolvedDestination)) {
+                continue;
+            }
+            Path relative = resolvedDestination.relativize(folder);
+            if (roots.stream().anyMatch(root -> Files.isDirectory(root.resolve(relative)))) {
+                continue;
+            }
+            try {
+                Files.delete(folder);
+                folders.add(folder.getParent());
+            } catch (DirectoryNotEmptyException | NoSuchFileException e) {
+                // still holds files we were not asked to delete
             } catch (IOException e) {
-                System.err.printf("Failed: %s → %s (%s)%n", source.getFileName(), destFile.getFileName(), e.getMessage());
-                failed++;
+                Stats.failed("delete", folder, e.getMessage());
+                System.err.println("Failed to delete: " + folder + " (" + e.getMessage() + ")");
             }
         }
+    }
 
-        System.out.printf("%n%s: %d succeeded, %d failed.%n", action, success, failed);
+    @Override
+    public FileFilter filter() {
+        return new FileFilter(FileType.FILE, dateCreated, extension,
+                lessThanSize, greaterThanSize, globs, excludes, maxDepth);
+    }
+
+    @Override
+    public boolean isRecursive() {
+        return recursive;
+    }
+
+    @Override
+    public String describe() {
+        return (move ? "move to " : link != null ? "link to " : "copy to ") + destination;
+    }
+
+    // a missing destination is created without asking, the rules file already names it
+    @Override
+    public void runBatch(List<FileEntry> files) throws IOException {
+        if (destination == null) {
+            System.out.println("Error: No destination folder given (-d).");
+            return;
+        }
+        if (move && copy) {
+            System.out.println("Error: Cannot use both --move and --copy.");
+            return;
+        }
+        if (sync) {
+            // the rule only gets files, not the folders they were found in
+            System.out.println("Error: --sync cannot be used in a rules file, run 'ordo transfer --sync' on its own.");
+            return;
+        }
+        if (contains != null) {
+            // the rule would get files before their contents were searched
+            System.out.println("Error: --contains cannot be used in a rules file, run 'ordo transfer --contains' on its own.");
+            return;
+        }
+        Files.createDirectories(destination);
+
+        Path resolvedDestination = destination.toAbsolutePath().normalize();
+        FileTransfer mode = move ? FileTransfer.CUT : FileTransfer.COPY;
+        try (TransferEngine engine = new TransferEngine(resolvedDestination, mode, jobs, chunkThresholdMB * 1024 * 1024)) {
+            engine.setVerify(verify);
+            engine.setLink(move ? null : link);
+            Stats.timed("transfer", "execute", () -> {
+                for (FileEntry file : files) {
+                    if (!file.path().startsWith(resolvedDestination)) {
+                        engine.submit(file);
+                    }
+                }
+                engine.finish();
+            });
+            System.out.printf("%s: %d succeeded, %d failed.%n", move ? "Moved" : "Copied", engine.succeeded(), engine.failed());
+        }
+    }
+
+    // hands every new or modified match to the running engine until the user stops ordo.
+    // a file is only sent again when its size or modification time changed since it was sent.
+    private void watchSources(Consumer<FileEntry> submit, TransferEngine engine, FileFilter filter, ContentMatcher content) throws IOException {
+        // Ctrl+C ends the JVM, let the transfers already handed over finish first
+        Runtime.getRuntime().addShutdownHook(new Thread(engine::finish, "ordo-watch-shutdown"));
+
+        Map<Path, String> sent = new HashMap<>();
+        try (DirectoryWatcher watcher = new DirectoryWatcher(from, recursive, filter)) {
+            System.out.println("\nWatching for new files, press Ctrl+C to stop...");
+            watcher.watch(batch -> {
+                for (FileEntry file : content != null ? ContentScan.matching(content, threads, batch) : batch) {
+                    String version = file.size() + ":" + file.attributes().lastModifiedTime().toMillis();
+                    if (!version.equals(sent.put(file.path(), version))) {
+                        submit.accept(file);
+                    }
+                }
+            });
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,496 @@
+package org.example.commands;
+
+import org.example.enumeration.ChecksumAlgorithm;
+import org.example.enumeration.FileTransfer;
+import org.example.enumeration.LinkMode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// copies or moves files into one destination folder on a bounded pool of workers.
+// copies go through FileChannel.transferTo, which the JDK maps to copy_file_range/sendfile
+// on Linux, so the bytes never pass through the Java heap (--verify has to see them, see VerifiedCopy).
+public class TransferEngine implements AutoCloseable {
+
+    // how many files may wait for a worker per job before submit() blocks the walk
+    private static final int QUEUED_PER_JOB = 4;
+
+    private final Path destination;
+    private final FileTransfer mode;
+    private final ExecutorService workers;
+    private final Semaphore inFlight;
+
+    // files at least this big are split into ranges copied by chunkWorkers
+    private final long chunkThreshold;
+    private final ExecutorService chunkWorkers;
+    private final FileStore destinationStore;
+
+    // names handed out by this run, so two workers never pick the same "name (n)"
+    private final Set<String> claimedNames = ConcurrentHashMap.newKeySet();
+    // where the "(n)" search for a name resumes, every lower counter is already taken
+    private final Map<String, Integer> nextCounter = new ConcurrentHashMap<>();
+
+    // folders of the destination known to exist, a sync only creates each of them once
+    private final Set<Path> createdFolders = ConcurrentHashMap.newKeySet();
+    // a sync compares the contents of same-sized files instead of their modification times
+    private boolean checksum;
+    // every copy is hashed while it is written and checked against the source (--verify)
+    private ChecksumAlgorithm verify;
+    // copies are made as links into the destination where it shares a volume with the source (--link)
+    private LinkMode link;
+    // records what is started and finished, so an interrupted run can be resumed (--resume)
+    private TransferJournal journal;
+    // per source folder, whether it is on the destination's volume (a move there is a rename)
+    private final Map<Path, Boolean> sameStore = new ConcurrentHashMap<>();
+
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private final AtomicInteger linked = new AtomicInteger();
+
+    public TransferEngine(Path destination, FileTransfer mode, int jobs, long chunkThreshold) throws IOException {
+        int workerCount = Math.max(1, jobs);
+        this.destination = destination;
+        this.mode = mode;
+        this.workers = Executors.newFixedThreadPool(workerCount, daemonThreads("ordo-transfer"));
+        this.inFlight = new Semaphore(workerCount * QUEUED_PER_JOB);
+        this.chunkThreshold = chunkThreshold;
+        // file workers only wait on chunks, the chunk pool is the one keeping the devices busy
+        this.chunkWorkers = Executors.newFixedThreadPool(workerCount, daemonThreads("ordo-chunk"));
+        this.destinationStore = Files.getFileStore(destination);
+    }
+
+    public static int defaultJobs() {
+        return 4;
+    }
+
+    public static long defaultChunkThresholdMB() {
+        return 256;
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public void setChecksum(boolean checksum) {
+        this.checksum = checksum;
+    }
+
+    public void setVerify(ChecksumAlgorithm verify) {
+        this.verify = verify;
+    }
+
+    public void setLink(LinkMode link) {
+        this.link = link;
+    }
+
+    public void setJournal(TransferJournal journal) {
+        this.journal = journal;
+    }
+
+    // queues one file. blocks while the workers are too far behind, so the caller can keep
+    // streaming matches in without buffering the whole selection. the name is picked here, on the
+    // caller's thread, so files sharing a name get "name (1)", ... in the order they were found.
+    public void submit(FileEntry source) {
+        if (journal == null) {
+            Path destFile = claimName(source.path());
+            execute(source, () -> transfer(source, destFile, 0, false));
+            return;
+        }
+        // with a journal the name is also written down before any worker creates it.
+        // a name the earlier run started writing is ours to check and replace. one it only planned
+        // is used again while it is still free, something else may have taken it since the crash.
+        Path destFile = journal.started(source.path());
+        boolean resumed = destFile != null;
+        if (resumed) {
+            claimedNames.add(destFile.getFileName().toString());
+        } else {
+            Path before = journal.plannedBefore(source.path());
+            destFile = before != null && claimedNames.add(before.getFileName().toString())
+                    && !Files.exists(before, LinkOption.NOFOLLOW_LINKS) ? before : claimName(source.path());
+        }
+        Path planned = destFile;
+        long position = journal.planned(source, planned);
+        execute(source, () -> transfer(source, planned, position, resumed));
+    }
+
+    // queues one file for a sync: it goes to the same relative path below the destination and
+    // is only copied when that file is missing or differs, an older copy there is replaced.
+    public void submitSync(FileEntry source, Path relative) {
+        execute(source, () -> sync(source, relative));
+    }
+
+    private void execute(FileEntry source, Runnable task) {
+        DaemonCommand.checkCancelled();
+        inFlight.acquireUninterruptibly();
+        try {
+            workers.execute(() -> {
+                try {
+                    DaemonCommand.checkCancelled();
+                    task.run();
+                } catch (CancellationException e) {
+                    // the daemon's client is gone, there is nobody to report the file to
+                } catch (RuntimeException e) {
+                    // the pool would only print a stack trace and leave the file out of both counts
+                    String message = e instanceof UncheckedIOException unchecked ? unchecked.getCause().getMessage() : e.toString();
+                    Stats.failed(mode == FileTransfer.CUT ? "move" : "copy", source.path(), message);
+                    System.err.printf("Failed: %s (%s)%n", source.path().getFileName(), message);
+                    failed.incrementAndGet();
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    // waits for every queued file to finish
+    public void finish() {
+        workers.shutdown();
+        try {
+            while (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+                // keep waiting, big copies take as long as they take
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        chunkWorkers.shutdown();
+    }
+
+    public int succeeded() {
+        return succeeded.get();
+    }
+
+    public int failed() {
+        return failed.get();
+    }
+
+    // files of succeeded() that were linked instead of copied
+    public int linked() {
+        return linked.get();
+    }
+
+    // files a sync left alone because the destination already had them
+    public int unchanged() {
+        return unchanged.get();
+    }
+
+    @Override
+    public void close() {
+        finish();
+    }
+
+    // planned is the name submit() claimed for this file, position the journal line that has to be
+    // on disk first (with a journal). resumed: an earlier run started writing planned.
+    private void transfer(FileEntry entry, Path planned, long position, boolean resumed) {
+        Path source = entry.path();
+        String action = mode == FileTransfer.CUT ? "Moved" : "Copied";
+        Path destFile = planned;
+        Stats.TransferEvent event = Stats.startTransfer();
+
+        try {
+            if (journal != null) {
+                journal.awaitDurable(position);
+                if (resumed) {
+                    if (isComplete(entry, destFile)) {
+                        // the earlier run finished the copy, only deleting the source or the "done" line was missing
+                        if (mode == FileTransfer.CUT) {
+                            Files.deleteIfExists(source);
+                        }
+                        journal.done(entry, destFile);
+                        System.out.printf("%s: %s → %s (checked, finished before)%n", action, source.getFileName(), destFile.getFileName());
+                        succeeded.incrementAndGet();
+                        return;
+                    }
+                    // half written, it starts over under the same name
+                    Files.deleteIfExists(destFile);
+                }
+            }
+
+            boolean linkedFile = false;
+            while (true) {
+                try {
+                    if (journal != null) {
+                        // on disk before the destination is, only names with a "started" line are ever replaced
+                        journal.awaitDurable(journal.started(entry, destFile));
+                    }
+                    if (link != null && mode == FileTransfer.COPY && link(source, destFile)) {
+                        linkedFile = true;
+                    } else if (entry.size() >= chunkThreshold) {
+                        transferLarge(entry, destFile);
+                    } else if (mode == FileTransfer.CUT && (verify == null || onDestinationStore(source))) {
+                        move(source, destFile);
+                    } else if (mode == FileTransfer.CUT) {
+                        // across volumes Files.move would delete the source before we could check the copy
+                        copy(source, destFile);
+                        Files.delete(source);
+                    } else {
+                        copy(source, destFile);
+                    }
+                    break;
+                } catch (FileAlreadyExistsException e) {
+                    // something outside this run created the name after we checked it, take the next one
+                    destFile = claimName(source);
+                    if (journal != null) {
+                        journal.awaitDurable(journal.planned(entry, destFile));
+                    }
+                }
+            }
+            if (journal != null) {
+                journal.done(entry, destFile);
+            }
+            Stats.finishTransfer(event, source, destFile, linkedFile ? 0 : entry.size(), mode == FileTransfer.CUT);
+            System.out.printf("%s: %s → %s%n", linkedFile ? "Linked" : action, source.getFileName(), destFile.getFileName());
+            if (linkedFile) {
+                linked.incrementAndGet();
+            }
+            succeeded.incrementAndGet();
+        } catch (IOException e) {
+            Stats.failed(mode == FileTransfer.CUT ? "move" : "copy", source, e.getMessage());
+            System.err.printf("Failed: %s → %s (%s)%n", source.getFileName(), destFile.getFileName(), e.getMessage());
+            failed.incrementAndGet();
+        }
+    }
+
+    // a copy is only ever renamed to its final name once complete (big files) or grows to its
+    // full size as it is written (small ones), so the size tells a finished copy from a broken one.
+    // with --verify the contents are compared as well.
+    private boolean isComplete(FileEntry entry, Path destFile) throws IOException {
+        BasicFileAttributes existing = readIfExists(destFile);
+        if (existing == null || !existing.isRegularFile() || existing.size() != entry.size()) {
+            return false;
+        }
+        return verify == null || sameContents(entry.path(), destFile, entry.size());
+    }
+
+    // the common case of a repeated sync is a file that did not change, which costs one stat of
+    // the destination. everything else is written next to the old copy and renamed over it, so an
+    // interrupted run never leaves a half-written file where a good backup was.
+    private void sync(FileEntry entry, Path relative) {
+        Path source = entry.path();
+        Path destFile = destination.resolve(relative);
+        Path temp = destFile.resolveSibling("." + destFile.getFileName() + ".ordo-sync");
+
+        try {
+            BasicFileAttributes existing = readIfExists(destFile);
+            if (existing != null && isUnchanged(entry, existing, destFile)) {
+                unchanged.incrementAndGet();
+                return;
+            }
+            if (existing != null && existing.isDirectory()) {
+                throw new IOException("a folder with that name is in the way");
+            }
+
+            Stats.TransferEvent event = Stats.startTransfer();
+            Path parent = destFile.getParent();
+            if (!createdFolders.contains(parent)) {
+                Files.createDirectories(parent);
+                createdFolders.add(parent);
+            }
+            Files.deleteIfExists(temp);
+            if (entry.size() >= chunkThreshold) {
+                ChunkedCopy.copy(source, entry.size(), temp, chunkWorkers, verify);
+                copyPermissions(source, temp);
+            } else {
+                copy(source, temp);
+            }
+            // the next sync recognizes the copy by its modification time
+            Files.setLastModifiedTime(temp, entry.attributes().lastModifiedTime());
+            Files.move(temp, destFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            Stats.finishTransfer(event, source, destFile, entry.size(), false);
+            System.out.printf("%s: %s%n", existing == null ? "Copied" : "Updated", relative);
+            succeeded.incrementAndGet();
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException ignored) {
+                // the next sync replaces it
+            }
+            Stats.failed("copy", source, e.getMessage());
+            System.err.printf("Failed: %s (%s)%n", relative, e.getMessage());
+            failed.incrementAndGet();
+        }
+    }
+
+    private static BasicFileAttributes readIfExists(Path path) throws IOException {
+        try {
+            Stats.stated();
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    // same size and the same modification time to the second (file systems keep different
+    // precisions), or with --checksum the same bytes
+    private boolean isUnchanged(FileEntry entry, BasicFileAttributes existing, Path destFile) throws IOException {
+        if (!existing.isRegularFile() || existing.size() != entry.size()) {
+            return false;
+        }
+        if (!checksum) {
+            return existing.lastModifiedTime().to(TimeUnit.SECONDS)
+                    == entry.attributes().lastModifiedTime().to(TimeUnit.SECONDS);
+        }
+        if (!sameContents(entry.path(), destFile, entry.size())) {
+            return false;
+        }
+        if (!existing.lastModifiedTime().equals(entry.attributes().lastModifiedTime())) {
+            // so the next sync without --checksum does not have to read it again
+            Files.setLastModifiedTime(destFile, entry.attributes().lastModifiedTime());
+        }
+        return true;
+    }
+
+    // compares two files of the same size through memory-mapped windows, stops at the first difference
+    private static boolean sameContents(Path first, Path second, long size) throws IOException {
+        try (FileChannel a = FileChannel.open(first, StandardOpenOption.READ);
+             FileChannel b = FileChannel.open(second, StandardOpenOption.READ)) {
+            for (long position = 0; position < size; position += ChunkedCopy.CHUNK_SIZE) {
+                long length = Math.min(ChunkedCopy.CHUNK_SIZE, size - position);
+                MappedByteBuffer left = a.map(FileChannel.MapMode.READ_ONLY, position, length);
+                MappedByteBuffer right = b.map(FileChannel.MapMode.READ_ONLY, position, length);
+                if (left.mismatch(right) != -1) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    // same naming as before: "name", then "name (1)", "name (2)", ...
+    // a name is claimed at most once per run, so concurrent workers never collide with each other
+    private Path claimName(Path source) {
+        String name = source.getFileName().toString();
+        int counter = nextCounter.getOrDefault(name, 0);
+        Path destFile = counter == 0 ? destination.resolve(name) : destination.resolve(name + " (" + counter + ")");
+
+        while (!claimedNames.add(destFile.getFileName().toString()) || Files.exists(destFile)) {
+            counter++;
+            destFile = destination.resolve(name + " (" + counter + ")");
+        }
+        nextCounter.merge(name, counter + 1, Math::max);
+        return destFile;
+    }
+
+    private void transferLarge(FileEntry entry, Path destFile) throws IOException {
+        Path source = entry.path();
+        // a move within one volume is still just a rename, no bytes to copy
+        if (mode == FileTransfer.CUT && onDestinationStore(source)) {
+            move(source, destFile);
+            return;
+        }
+        // with --verify the copy is checked before it gets its name, so the source is only deleted after that
+        ChunkedCopy.copy(source, entry.size(), destFile, chunkWorkers, verify);
+        copyPermissions(source, destFile);
+        if (mode == FileTransfer.CUT) {
+            Files.delete(source);
+        }
+    }
+
+    // a link costs one metadata update however big the file is. it needs the source on the
+    // destination's volume (a symbolic one would break as soon as the other volume is unmounted),
+    // everywhere else, or on file systems without links, the file is copied as usual.
+    private boolean link(Path source, Path destFile) throws IOException {
+        if (!onDestinationStore(source)) {
+            return false;
+        }
+        try {
+            if (link == LinkMode.HARD) {
+                Files.createLink(destFile, source);
+            } else {
+                Files.createSymbolicLink(destFile, source);
+            }
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            return false;
+        }
+    }
+
+    private boolean onDestinationStore(Path source) throws IOException {
+        Path folder = source.getParent();
+        Boolean same = sameStore.get(folder);
+        if (same == null) {
+            same = Files.getFileStore(source).equals(destinationStore);
+            sameStore.put(folder, same);
+        }
+        return same;
+    }
+
+    private static void move(Path source, Path destFile) throws IOException {
+        // a rename on the same volume. across volumes the JDK copies natively and
+        // deletes the source, and either way an existing destination is never replaced.
+        Files.move(source, destFile);
+    }
+
+    private void copy(Path source, Path destFile) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ)) {
+            try (FileChannel out = verify != null
+                    ? FileChannel.open(destFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                    : FileChannel.open(destFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                long size = in.size();
+                if (verify != null) {
+                    VerifiedCopy.copyRange(source, in, out, 0, size, verify);
+                } else {
+                    long position = 0;
+                    while (position < size) {
+                        long transferred = in.transferTo(position, size - position, out);
+                        if (transferred <= 0) {
+                            break;
+                        }
+                        position += transferred;
+                    }
+                    Stats.copied(position);
+                }
+            } catch (FileAlreadyExistsException e) {
+                throw e;
+            } catch (IOException e) {
+                // never leave a half-written file behind
+                Files.deleteIfExists(destFile);
+                throw e;
+            }
+        }
+        copyPermissions(source, destFile);
+    }
+
+    // Files.copy keeps the permission bits, so the channel copy does too
+    static void copyPermissions(Path source, Path destFile) {
+        try {
+            if (source.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+                Files.setPosixFilePermissions(destFile, Files.getPosixFilePermissions(source));
+            }
+        } catch (IOException | UnsupportedOperationException e) {
+            // permissions are best effort, the data is already there
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package org.example.commands;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// append-only record of one transfer under ~/.ordo/journal, so a run that died can be picked up
+// where it stopped (--resume). one line per event:
+//   P  planned      the walk handed the file to the workers, under this destination name
+//   S  started      a worker began writing the destination
+//   D  done         the copy is complete (for a move, the source is gone)
+// lines are collected in memory and written with one fsync per batch instead of one per line.
+// the "planned" and "started" lines have to be on disk before the destination is created, so a
+// resumed run only ever replaces names it started writing itself. the walk runs ahead of the
+// workers and the workers start files side by side, so one fsync covers all the lines waiting at
+// that moment. "done" lines go out every half second: a file whose "done" line is lost is checked
+// again (see TransferEngine), never skipped unseen.
+public class TransferJournal implements AutoCloseable {
+
+    private static final String MAGIC = "ORDO-JOURNAL-1";
+
+    private static final int BATCH_BYTES = 256 * 1024;
+    private static final long BATCH_MILLIS = 500;
+
+    private final Path file;
+    private final FileChannel channel;
+
+    // source -> size:mtime of the files finished by earlier runs
+    private final Map<String, String> done = new ConcurrentHashMap<>();
+    // source -> destination of files an earlier run started writing but did not finish
+    private final Map<String, Path> started = new ConcurrentHashMap<>();
+    // source -> destination of files an earlier run only planned. ordo never created that name,
+    // whatever is there now came from somewhere else.
+    private final Map<String, Path> planned = new ConcurrentHashMap<>();
+
+    private final StringBuilder batch = new StringBuilder();
+    // lines appended so far, and how many of them are on disk
+    private long appended;
+    private volatile long durable;
+    private final ScheduledExecutorService flusher;
+    private volatile IOException failure;
+    // Ctrl+C is the usual way a long transfer dies, the last batch is written on the way out
+    private final Thread flushOnExit = new Thread(this::flushQuietly, "ordo-journal-exit");
+
+    private TransferJournal(Path file, FileChannel channel) {
+        this.file = file;
+        this.channel = channel;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ordo-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static Path journalDirectory() {
+        return Path.of(System.getProperty("user.home"), ".ordo", "journal");
+    }
+
+    // the journal of one job: the same sources, destination and mode always get the same file
+    public static TransferJournal open(List<Path> sources, Path destination, String mode) throws IOException {
+        StringBuilder job = new StringBuilder(mode).append('\n').append(destination);
+        for (Path source : sources) {
+            job.append('\n').append(source.toAbsolutePath().normalize());
+        }
+        Path file = journalDirectory().resolve(fileNameFor(job.toString()));
+        Files.createDirectories(file.getParent());
+
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        TransferJournal journal = new TransferJournal(file, channel);
+        try {
+            if (channel.size() == 0) {
+                journal.append(MAGIC + "\n");
+            } else {
+                journal.read();
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        journal.flusher.scheduleWithFixedDelay(journal::flushQuietly, BATCH_MILLIS, BATCH_MILLIS, TimeUnit.MILLISECONDS);
+        Runtime.getRuntime().addShutdownHook(journal.flushOnExit);
+        return journal;
+    }
+
+    public int finishedBefore() {
+        return done.size();
+    }
+
+    public int unfinishedBefore() {
+        return started.size() + planned.size();
+    }
+
+    // true when an earlier run already transferred this file and it did not change since
+    public boolean isDone(FileEntry entry) {
+        return version(entry).equals(done.get(entry.path().toString()));
+    }
+
+    // the name an earlier run started writing this file under without finishing it, or null.
+    // only this name may be checked, replaced or deleted by the resumed run.
+    public Path started(Path source) {
+        return started.get(source.toString());
+    }
+
+    // the name an earlier run planned for this file but never started writing, or null
+    public Path plannedBefore(Path source) {
+        return planned.get(source.toString());
+    }
+
+    // returns the position to pass to awaitDurable() before the destination is created
+    public long planned(FileEntry entry, Path destination) {
+        return record('P', entry, destination);
+    }
+
+    // blocks until the lines up to position are on disk. whoever gets here first writes the
+    // whole batch, the workers queued behind it find their lines already written.
+    public void awaitDurable(long position) throws IOException {
+        if (durable < position) {
+            flush();
+        }
+    }
+
+    // like planned(), the destination may only be created once this line is on disk
+    public long started(FileEntry entry, Path destination) {
+        return record('S', entry, destination);
+    }
+
+    public void done(FileEntry entry, Path destination) {
+        record('D', entry, destination);
+    }
+
+    // writes what is left and, when the job is complete, removes the journal
+    public void finish(boolean complete) throws IOException {
+        close();
+        if (complete) {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flusher.shutdown();
+        try {
+            Runtime.getRuntime().removeShutdownHook(flushOnExit);
+        } catch (IllegalStateException e) {
+            // already shutting down, the hook is running
+        }
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+        if (failure != null) {
+            throw new IOException("could not write the journal " + file + " (" + failure.getMessage() + ")", failure);
+        }
+    }
+
+    private long record(char type, FileEntry entry, Path destination) {
+        StringBuilder line = new StringBuilder(160).append(type).append('\t').append(version(entry)).append('\t');
+        escape(entry.path().toString(), line);
+        if (destination != null) {
+            line.append('\t');
+            escape(destination.toString(), line);
+        }
+        return append(line.append('\n'));
+    }
+
+    private long append(CharSequence line) {
+        boolean full;
+        long position;
+        synchronized (batch) {
+            batch.append(line);
+            position = ++appended;
+            full = batch.length() >= BATCH_BYTES;
+        }
+        if (full) {
+            flushQuietly();
+        }
+        return position;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            // the transfer goes on, close() reports it
+            if (failure == null) {
+                failure = e;
+            }
+        }
+    }
+
+    private void flush() throws IOException {
+        synchronized (channel) {
+            String pending;
+            long position;
+            synchronized (batch) {
+                pending = batch.toString();
+                position = appended;
+                batch.setLength(0);
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(pending.getBytes(StandardCharsets.UTF_8));
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+            durable = position;
+        }
+    }
+
+    // the last line may be cut off by the crash, it is ignored like the lines of an unknown type
+    private void read() throws IOException {
+        boolean torn = channel.size() > 0 && lastByte() != '\n';
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            if (!MAGIC.equals(reader.readLine())) {
+                throw new IOException("not an ordo journal: " + file);
+            }
+            String line = reader.readLine();
+            while (line != null) {
+                String next = reader.readLine();
+                if (next != null || !torn) {
+                    readLine(line);
+                }
+                line = next;
+            }
+        }
+        if (torn) {
+            // so the first line of this run does not continue the broken one
+            append("\n");
+        }
+    }
+
+    private void readLine(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length < 3) {
+            return;
+        }
+        String source = unescape(fields[2]);
+        switch (fields[0]) {
+            case "P" -> {
+                // a later run may plan a file again that an earlier one had started already
+                if (fields.length == 4 && !started.containsKey(source)) {
+                    planned.put(source, Path.of(unescape(fields[3])));
+                }
+            }
+            case "S" -> {
+                if (fields.length == 4) {
+                    planned.remove(source);
+                    started.put(source, Path.of(unescape(fields[3])));
+                }
+            }
+            case "D" -> {
+                planned.remove(source);
+                started.remove(source);
+                done.put(source, fields[1]);
+            }
+            default -> {
+                // a line from a newer ordo, whatever it says the walk finds the file again
+            }
+        }
+    }
+
+    private int lastByte() throws IOException {
+        ByteBuffer last = ByteBuffer.allocate(1);
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            in.read(last, in.size() - 1);
+        }
+        return last.get(0);
+    }
+
+    private static String version(FileEntry entry) {
+        return entry.size() + ":" + entry.attributes().lastModifiedTime().toMillis();
+    }
+
+    // tabs, newlines and backslashes in names are written as \t, \n and \\
+    private static void escape(String text, StringBuilder out) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '\\' -> out.append("\\\\");
+                case '\t' -> out.append("\\t");
+                case '\n' -> out.append("\\n");
+                default -> out.append(c);
+            }
+        }
+    }
+
+    private static String unescape(String text) {
+        if (text.indexOf('\\') < 0) {
+            return text;
+        }
+        StringBuilder out = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\\' && i + 1 < text.length()) {
+                char next = text.charAt(++i);
+                out.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+            } else {
+                out.append(c);
+            }
+        }
+        return out.toString();
+    }
+
+    private static String fileNameFor(String job) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(job.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest) + ".journal";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.commands;
+
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import picocli.CommandLine.Spec;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+import java.util.concurrent.Callable;
+
+@Command(
+        name = "trash",
+        mixinStandardHelpOptions = true,
+        description = "List, restore or empty items moved to the trash by delete",
+        subcommands = {
+                TrashCommand.ListTrash.class,
+                TrashCommand.RestoreTrash.class,
+                TrashCommand.EmptyTrash.class
+        }
+)
+public class TrashCommand implements Runnable {
+
+    private static final DateTimeFormatter DATE_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm").withZone(ZoneId.systemDefault());
+
+    @Spec
+    private CommandLine.Model.CommandSpec spec;
+
+    @Override
+    public void run() {
+        spec.commandLine().usage(System.out);
+    }
+
+    @Command(name = "list", mixinStandardHelpOptions = true, description = "List the items in the trash")
+    static class ListTrash implements Callable<Integer> {
+
+        @Override
+        public Integer call() throws Exception {
+            List<TrashStore.TrashEntry> entries = new TrashStore().entries();
+            if (entries.isEmpty()) {
+                System.out.println("Trash is empty.");
+                return 0;
+            }
+
+            for (TrashStore.TrashEntry entry : entries) {
+                System.out.printf("%s  %s  %s%s%n", entry.id(), DATE_FORMAT.format(Instant.ofEpochMilli(entry.trashedAt())),
+                        entry.original(), entry.directory() ? "  <DIR>" : "");
+            }
+            System.out.println("\n" + entries.size() + " item(s) in trash.");
+            return 0;
+        }
+    }
+
+    @Command(name = "restore", mixinStandardHelpOptions = true, description = "Put trashed items back where they were deleted from")
+    static class RestoreTrash implements Callable<Integer> {
+
+        @Parameters(arity = "1..*", description = "Trash ids (see 'ordo trash list') or original paths")
+        private List<String> items;
+
+        @Override
+        public Integer call() throws Exception {
+            int failed = 0;
+            try (TrashStore trash = new TrashStore()) {
+                List<TrashStore.TrashEntry> entries = trash.entries();
+
+                for (String item : items) {
+                    TrashStore.TrashEntry entry = find(entries, item);
+                    if (entry == null) {
+                        System.err.println("Not in trash: " + item);
+                        failed++;
+                        continue;
+                    }
+                    try {
+                        trash.restore(entry);
+                        entries.remove(entry);
+                        System.out.println("Restored: " + entry.original());
+                    } catch (Exception e) {
+                        System.err.println("Failed to restore: " + entry.original());
+                        System.err.println("  → " + e.getMessage());
+                        failed++;
+                    }
+                }
+            }
+            return failed == 0 ? 0 : 1;
+        }
+
+        // an id matches exactly, a path matches the most recently trashed item from there
+        private static TrashStore.TrashEntry find(List<TrashStore.TrashEntry> entries, String item) {
+            Path original = WorkingDirectory.resolve(Path.of(item)).toAbsolutePath().normalize();
+            TrashStore.TrashEntry match = null;
+            for (TrashStore.TrashEntry entry : entries) {
+                if (entry.id().equals(item)) {
+                    return entry;
+                }
+                if (entry.original().equals(original)) {
+                    match = entry;
+                }
+            }
+            return match;
+        }
+    }
+
+    @Command(name = "empty", mixinStandardHelpOptions = true, description = "Permanently delete everything in the trash")
+    static class EmptyTrash implements Callable<Integer> {
+
+        @Option(names = {"-t", "--threads"}, description = "Number of threads used to delete (default: number of CPU cores).")
+        private int threads = FileWalker.defaultThreads();
+
+        @Override
+        public Integer call() throws Exception {
+            try (TrashStore trash = new TrashStore()) {
+                List<TrashStore.TrashEntry> entries = trash.entries();
+                if (entries.isEmpty()) {
+                    System.out.println("Trash is empty.");
+                    return 0;
+                }
+
+                System.out.printf("About to PERMANENTLY delete %d trashed item(s).%n", entries.size());
+                System.out.print("Continue? (y/N): ");
+                if (!new Scanner(System.in).nextLine().trim().equalsIgnoreCase("y")) {
+                    System.out.println("Aborted.");
+                    return 0;
+                }
+
+                List<FileEntry> stored = new ArrayList<>(entries.size());
+                for (TrashStore.TrashEntry entry : entries) {
+                    try {
+                        stored.add(FileEntry.read(entry.stored()));
+                    } catch (IOException e) {
+                        // already gone from disk, it only needs to leave the manifest
+                    }
+                }
+
+                PurgeEngine engine = new PurgeEngine(threads);
+                engine.purge(stored);
+
+                // whatever could not be deleted stays listed
+                List<TrashStore.TrashEntry> deleted = new ArrayList<>();
+                for (TrashStore.TrashEntry entry : entries) {
+                    if (!Files.exists(entry.stored(), LinkOption.NOFOLLOW_LINKS)) {
+                        deleted.add(entry);
+                    }
+                }
+                trash.forget(deleted);
+
+                int remaining = entries.size() - deleted.size();
+                System.out.printf("Trash emptied, %d item(s) could not be deleted.%n", remaining);
+                return remaining == 0 ? 0 : 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package org.example.commands;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// the ordo trash. items are renamed into a trash folder on their own volume (so trashing is a
+// rename, never a copy) under a generated unique name, and every action is appended to
+// ~/.ordo-trash/manifest.tsv. list/restore/empty only read the manifest, never the trash folders.
+// appending and replacing the manifest happen under a lock on manifest.lock, shared by every
+// ordo process, so an item trashed while another process empties the trash is not lost.
+public class TrashStore implements AutoCloseable {
+
+    private static final String TRASHED = "T";
+    private static final String RESTORED = "R";
+
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    // the longest file name most file systems take, in bytes
+    private static final int MAX_NAME_BYTES = 255;
+
+    private final Path homeTrash;
+    private final Path manifest;
+    private final Path manifestLock;
+    private final Object homeVolume;
+    // parent folder → trash folder on the same volume, most items share a handful of parents
+    private final Map<Path, Path> trashByParent = new HashMap<>();
+    private FileChannel manifestChannel;
+    // which file manifestChannel writes to, 'trash empty' may have put a new one in its place
+    private Object manifestKey;
+    private FileChannel lockChannel;
+
+    public TrashStore() {
+        this.homeTrash = Path.of(System.getProperty("user.home"), ".ordo-trash");
+        this.manifest = homeTrash.resolve("manifest.tsv");
+        this.manifestLock = homeTrash.resolve("manifest.lock");
+        this.homeVolume = volumeOf(homeTrash.getParent());
+    }
+
+    // one trashed item as recorded in the manifest
+    public record TrashEntry(String id, long trashedAt, boolean directory, long size, Path stored, Path original) {
+    }
+
+    // true for anything inside one of the trash folders trashFor hands out: ~/.ordo-trash, or
+    // .ordo-trash-<user> at the top of another volume. any other folder with such a name is not ours.
+    public static boolean isTrashed(Path path) {
+        Path absolute = path.toAbsolutePath().normalize();
+        if (absolute.startsWith(Path.of(System.getProperty("user.home"), ".ordo-trash"))) {
+            return true;
+        }
+        String volumeTrash = ".ordo-trash-" + System.getProperty("user.name");
+        for (Path folder = absolute; folder.getParent() != null; folder = folder.getParent()) {
+            if (folder.getFileName().toString().equals(volumeTrash) && isVolumeTop(folder.getParent())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized TrashEntry moveToTrash(FileEntry item) throws IOException {
+        Path source = item.path();
+        Path trashDir = trashFor(source);
+
+        while (true) {
+            String id = newId();
+            Path stored = trashDir.resolve(storedName(id, source.getFileName().toString()));
+            try {
+                // never replaces anything. a clash can only come from another process, so just draw again.
+                Files.move(source, stored);
+            } catch (FileAlreadyExistsException e) {
+                continue;
+            }
+            TrashEntry entry = new TrashEntry(id, System.currentTimeMillis(), item.isDirectory(), item.size(), stored, source);
+            append(TRASHED, entry);
+            return entry;
+        }
+    }
+
+    // every item currently in the trash, oldest first
+    public List<TrashEntry> entries() throws IOException {
+        Map<String, TrashEntry> live = new LinkedHashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", -1);
+                if (fields.length == 7 && fields[0].equals(TRASHED)) {
+                    live.put(fields[1], new TrashEntry(fields[1], Long.parseLong(fields[2]),
+                            fields[3].equals("d"), Long.parseLong(fields[4]),
+                            Path.of(unescape(fields[5])), Path.of(unescape(fields[6]))));
+                } else if (fields.length >= 2 && fields[0].equals(RESTORED)) {
+                    live.remove(fields[1]);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return List.of();
+        }
+        return new ArrayList<>(live.values());
+    }
+
+    public synchronized void restore(TrashEntry entry) throws IOException {
+        if (Files.exists(entry.original(), LinkOption.NOFOLLOW_LINKS)) {
+            throw new IOException("Something already exists at " + entry.original());
+        }
+        Files.createDirectories(entry.original().getParent());
+        Files.move(entry.stored(), entry.original());
+        append(RESTORED, entry);
+    }
+
+    // rewrites the manifest without the given entries, used once emptying is done. the manifest
+    // is read again under the lock, so what other processes appended since entries() stays.
+    public synchronized void forget(List<TrashEntry> deleted) throws IOException {
+        Set<String> ids = new HashSet<>();
+        for (TrashEntry entry : deleted) {
+            ids.add(entry.id());
+        }
+        FileLock lock = lock();
+        try {
+            Path temp = manifest.resolveSibling("manifest.tsv.tmp");
+            StringBuilder content = new StringBuilder();
+            for (TrashEntry entry : entries()) {
+                if (!ids.contains(entry.id())) {
+                    content.append(line(TRASHED, entry));
+                }
+            }
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            lock.release();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (manifestChannel != null) {
+            manifestChannel.close();
+            manifestChannel = null;
+        }
+        if (lockChannel != null) {
+            lockChannel.close();
+            lockChannel = null;
+        }
+    }
+
+    private FileLock lock() throws IOException {
+        if (lockChannel == null) {
+            Files.createDirectories(homeTrash);
+            lockChannel = FileChannel.open(manifestLock, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        }
+        return lockChannel.lock();
+    }
+
+    // the trash folder on the same volume as source: ~/.ordo-trash when source lives on the home
+    // volume, otherwise .ordo-trash-<user> at the top of the source's volume
+    private Path trashFor(Path source) throws IOException {
+        Path parent = source.toAbsolutePath().getParent();
+        Path cached = trashByParent.get(parent);
+        if (cached != null) {
+            return cached;
+        }
+
+        Object volume = volumeOf(parent);
+        Path trashDir = homeTrash;
+        if (volume != null && !volume.equals(homeVolume)) {
+            Path top = parent;
+            while (top.getParent() != null && volume.equals(volumeOf(top.getParent()))) {
+                top = top.getParent();
+            }
+            trashDir = top.resolve(".ordo-trash-" + System.getProperty("user.name"));
+            try {
+                Files.createDirectories(trashDir);
+            } catch (IOException e) {
+                // read-only or foreign volume root: fall back to the home trash (a copy, but it works)
+                trashDir = homeTrash;
+            }
+        }
+        Files.createDirectories(trashDir);
+        trashByParent.put(parent, trashDir);
+        return trashDir;
+    }
+
+    private static boolean isVolumeTop(Path folder) {
+        Path above = folder.getParent();
+        if (above == null) {
+            return true;
+        }
+        Object volume = volumeOf(folder);
+        return volume != null && !volume.equals(volumeOf(above));
+    }
+
+    // device id where the platform has one (a cheap stat), the FileStore otherwise
+    private static Object volumeOf(Path directory) {
+        try {
+            return Files.getAttribute(directory, "unix:dev");
+        } catch (IOException | UnsupportedOperationException | IllegalArgumentException e) {
+            try {
+                return Files.getFileStore(directory);
+            } catch (IOException ex) {
+                return null;
+            }
+        }
+    }
+
+    // "<id>_<name>", with the name cut to fit the file system's limit. the id alone is unique and
+    // the manifest has the original path, the name only helps whoever looks into the folder.
+    private static String storedName(String id, String name) {
+        StringBuilder stored = new StringBuilder(id).append('_');
+        int bytes = stored.length();
+        for (int i = 0; i < name.length(); ) {
+            int codePoint = name.codePointAt(i);
+            bytes += codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (bytes > MAX_NAME_BYTES) {
+                break;
+            }
+            stored.appendCodePoint(codePoint);
+            i += Character.charCount(codePoint);
+        }
+        return stored.toString();
+    }
+
+    // unique without looking at the disk: time, a per-process sequence and a random part
+    private static String newId() {
+        return Long.toString(System.currentTimeMillis(), 36)
+                + "-" + Long.toString(SEQUENCE.incrementAndGet(), 36)
+                + "-" + Integer.toString(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE), 36);
+    }
+
+    private void append(String action, TrashEntry entry) throws IOException {
+        ByteBuffer record = StandardCharsets.UTF_8.encode(line(action, entry));
+        FileLock lock = lock();
+        try {
+            if (manifestChannel != null && !Objects.equals(manifestKey, fileKey(manifest))) {
+                manifestChannel.close();
+                manifestChannel = null;
+            }
+            if (manifestChannel == null) {
+                manifestChannel = FileChannel.open(manifest, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                manifestKey = fileKey(manifest);
+            }
+            while (record.hasRemaining()) {
+                manifestChannel.write(record);
+            }
+        } finally {
+            lock.release();
+        }
+    }
+
+    private static Object fileKey(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static String line(String action, TrashEntry entry) {
+        return action + "\t" + entry.id() + "\t" + entry.trashedAt() + "\t" + (entry.directory() ? "d" : "f")
+                + "\t" + entry.size() + "\t" + escape(entry.stored().toString())
+                + "\t" + escape(entry.original().toString()) + "\n";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+
+    private static String unescape(String value) {
+        StringBuilder result = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                char next = value.charAt(++i);
+                result.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
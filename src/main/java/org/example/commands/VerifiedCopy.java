@@ -0,0 +1,134 @@
+package org.example.commands;
+
+import org.example.enumeration.ChecksumAlgorithm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+// the copy behind --verify. transferTo never shows us the bytes, so a verified copy reads the
+// source into a buffer instead, hashes what it read and writes the same buffer out. afterwards
+// the copy is forced to the disk, the written range is read back and hashed again, and both hashes
+// have to match. the source is read once, the destination once, instead of copying and then
+// hashing both files in full.
+final class VerifiedCopy {
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    // one buffer per worker thread, reused for every file it copies
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+    private VerifiedCopy() {
+    }
+
+    // copies count bytes starting at start (the same position in both files) and checks them.
+    // out has to be open for reading as well.
+    static void copyRange(Path source, FileChannel in, FileChannel out, long start, long count,
+                          ChecksumAlgorithm algorithm) throws IOException {
+        ByteBuffer buffer = BUFFERS.get();
+        Hash read = Hash.of(algorithm);
+        long done = 0;
+        while (done < count) {
+            buffer.clear().limit((int) Math.min(BUFFER_SIZE, count - done));
+            if (in.read(buffer, start + done) < 0) {
+                throw new IOException("Source shrank while copying: " + source);
+            }
+            buffer.flip();
+            read.update(buffer.duplicate());
+            while (buffer.hasRemaining()) {
+                done += out.write(buffer, start + done);
+            }
+        }
+        Stats.copied(done);
+        // a write error of the device shows up here, before the copy is called good
+        out.force(true);
+
+        Hash written = Hash.of(algorithm);
+        done = 0;
+        while (done < count) {
+            buffer.clear().limit((int) Math.min(BUFFER_SIZE, count - done));
+            int bytes = out.read(buffer, start + done);
+            if (bytes < 0) {
+                break;
+            }
+            buffer.flip();
+            written.update(buffer);
+            done += bytes;
+        }
+        if (done != count || !Arrays.equals(read.digest(), written.digest())) {
+            throw new IOException(algorithm.name().toLowerCase() + " of the copy does not match the source");
+        }
+    }
+
+    private interface Hash {
+
+        static Hash of(ChecksumAlgorithm algorithm) {
+            return switch (algorithm) {
+                case CRC32C -> new Crc32c();
+                case XXHASH -> new XxHash();
+                case SHA256 -> new Sha256();
+            };
+        }
+
+        // consumes the remaining bytes of data
+        void update(ByteBuffer data);
+
+        byte[] digest();
+    }
+
+    // the JDK computes it with the CPU's crc32 instructions
+    private static final class Crc32c implements Hash {
+        private final CRC32C crc = new CRC32C();
+
+        @Override
+        public void update(ByteBuffer data) {
+            crc.update(data);
+        }
+
+        @Override
+        public byte[] digest() {
+            return ByteBuffer.allocate(Long.BYTES).putLong(crc.getValue()).array();
+        }
+    }
+
+    private static final class XxHash implements Hash {
+        private final XxHash64 hash = new XxHash64();
+
+        @Override
+        public void update(ByteBuffer data) {
+            hash.update(data);
+        }
+
+        @Override
+        public byte[] digest() {
+            return ByteBuffer.allocate(Long.BYTES).putLong(hash.value()).array();
+        }
+    }
+
+    private static final class Sha256 implements Hash {
+        private final MessageDigest digest;
+
+        Sha256() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        @Override
+        public void update(ByteBuffer data) {
+            digest.update(data);
+        }
+
+        @Override
+        public byte[] digest() {
+            return digest.digest();
+        }
+    }
+}
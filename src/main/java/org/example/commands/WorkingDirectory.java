@@ -0,0 +1,44 @@
+package org.example.commands;
+
+import picocli.CommandLine;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// the folder relative paths on the command line are taken from. for a normal run that is the
+// JVM's own working directory. the daemon serves clients started in other folders and cannot
+// change its own, so it sets the client's here and every path argument is resolved against it
+// while parsing, before any command sees it.
+public final class WorkingDirectory {
+
+    private static volatile Path current;
+
+    private WorkingDirectory() {
+    }
+
+    static void set(Path directory) {
+        current = directory;
+    }
+
+    static Path resolve(Path path) {
+        Path directory = current;
+        return directory == null || path.isAbsolute() ? path : directory.resolve(path);
+    }
+
+    // path options and parameters go through resolve(), and so do the "." defaults of the
+    // commands (field initializers are not converted by picocli, a default from the provider is)
+    public static CommandLine configure(CommandLine commandLine) {
+        commandLine.registerConverter(Path.class, value -> resolve(Path.of(value)));
+        commandLine.setDefaultValueProvider(argument -> {
+            Object initial = argument.initialValue();
+            if (initial instanceof Path path) {
+                return path.toString();
+            }
+            if (initial instanceof List<?> list && list.size() == 1 && list.get(0) instanceof Path path) {
+                return path.toString();
+            }
+            return null;
+        });
+        return commandLine;
+    }
+}
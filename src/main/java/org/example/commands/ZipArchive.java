@@ -0,0 +1,254 @@
+package org.example.commands;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+// writes a zip file. every entry is its own deflate stream, cut into blocks for ParallelDeflater.
+// the local header goes out first with crc and sizes left open and is filled in once the entry is
+// written (the output is a file we can seek in), so no data descriptors are needed and every unzip
+// can read the result. zip64 fields are added wherever sizes, offsets or the entry count need them.
+final class ZipArchive implements Archive {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int ZIP64_END = 0x06064b50;
+    private static final int ZIP64_LOCATOR = 0x07064b50;
+    private static final int END = 0x06054b50;
+
+    private static final short STORED = 0;
+    private static final short DEFLATED = 8;
+    // bit 11: names are utf-8
+    private static final short UTF8_NAMES = 0x0800;
+    // unix, spec version 4.5 (zip64)
+    private static final short MADE_BY = (3 << 8) | 45;
+
+    private static final long MAX_32 = 0xFFFFFFFFL;
+    // entries this big get zip64 sizes right away, leaving room for deflate's overhead on data that does not compress
+    private static final long ZIP64_SIZE = 0xF0000000L;
+
+    private final ParallelDeflater deflater;
+    private final int level;
+
+    // written by the writer thread only
+    private final ByteArrayOutputStream centralDirectory = new ByteArrayOutputStream();
+    private long entries;
+
+    ZipArchive(FileChannel out, int level, int jobs) {
+        this.deflater = new ParallelDeflater(out, jobs);
+        this.level = level;
+    }
+
+    // what the writer thread knows about the entry it is writing
+    private static final class Entry {
+        final byte[] name;
+        final long modified;
+        final int mode;
+        final boolean stored;
+        final boolean zip64;
+        long offset;
+        long compressed;
+
+        Entry(byte[] name, long modified, int mode, boolean stored, boolean zip64) {
+            this.name = name;
+            this.modified = modified;
+            this.mode = mode;
+            this.stored = stored;
+            this.zip64 = zip64;
+        }
+    }
+
+    @Override
+    public void add(FileEntry file, String name, boolean store) throws IOException {
+        long size = file.size();
+        try (FileChannel in = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            Entry entry = new Entry(name.getBytes(StandardCharsets.UTF_8), file.attributes().lastModifiedTime().toMillis(),
+                    Archive.permissions(file.path()), store, size >= ZIP64_SIZE);
+            deflater.then(out -> writeLocalHeader(out, entry));
+
+            CRC32 crc = new CRC32();
+            IOException failure = null;
+            byte[] previous = null;
+            long done = 0;
+            // runs once for an empty file too, a deflate stream needs its end marker
+            do {
+                int length = (int) Math.min(ParallelDeflater.BLOCK_SIZE, size - done);
+                byte[] block = new byte[length];
+                if (failure == null) {
+                    failure = Archive.read(in, done, block, 0, length);
+                }
+                crc.update(block, 0, length);
+                done += length;
+
+                if (store) {
+                    ByteBuffer data = ByteBuffer.wrap(block);
+                    deflater.then(out -> entry.compressed += ParallelDeflater.write(out, data));
+                } else {
+                    byte[] dictionary = previous != null ? ParallelDeflater.dictionary(previous, previous.length) : null;
+                    Future<ByteBuffer> compressed = deflater.deflate(block, length, dictionary, done == size, level);
+                    deflater.then(out -> entry.compressed += ParallelDeflater.write(out, ParallelDeflater.await(compressed)));
+                }
+                previous = block;
+            } while (done < size);
+
+            long checksum = crc.getValue();
+            deflater.then(out -> finishEntry(out, entry, checksum, size));
+            if (failure != null) {
+                throw new IncompleteEntry(failure);
+            }
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        deflater.then(this::writeCentralDirectory);
+        deflater.finish();
+    }
+
+    @Override
+    public void close() {
+        deflater.abort();
+    }
+
+    private void writeLocalHeader(FileChannel out, Entry entry) throws IOException {
+        entry.offset = out.position();
+        ByteBuffer header = buffer(30 + entry.name.length + 9 + (entry.zip64 ? 20 : 0));
+        header.putInt(LOCAL_HEADER)
+                .putShort((short) (entry.zip64 ? 45 : 20))
+                .putShort(UTF8_NAMES)
+                .putShort(entry.stored ? STORED : DEFLATED)
+                .putInt(dosTime(entry.modified))
+                .putInt(0)                                      // crc, filled in later
+                .putInt(entry.zip64 ? (int) MAX_32 : 0)         // compressed size
+                .putInt(entry.zip64 ? (int) MAX_32 : 0)         // size
+                .putShort((short) entry.name.length)
+                .putShort((short) (9 + (entry.zip64 ? 20 : 0)))
+                .put(entry.name);
+        putTimestamp(header, entry.modified);
+        if (entry.zip64) {
+            header.putShort((short) 0x0001).putShort((short) 16).putLong(0).putLong(0);
+        }
+        ParallelDeflater.write(out, header.flip());
+    }
+
+    private void finishEntry(FileChannel out, Entry entry, long crc, long size) throws IOException {
+        if (!entry.zip64 && entry.compressed >= MAX_32) {
+            throw new IOException("entry grew past 4 GB while compressing: " + new String(entry.name, StandardCharsets.UTF_8));
+        }
+        ByteBuffer sizes = buffer(12).putInt((int) crc);
+        if (!entry.zip64) {
+            sizes.putInt((int) entry.compressed).putInt((int) size);
+        }
+        out.write(sizes.flip(), entry.offset + 14);
+        if (entry.zip64) {
+            ByteBuffer extra = buffer(16).putLong(size).putLong(entry.compressed);
+            out.write(extra.flip(), entry.offset + 30 + entry.name.length + 9 + 4);
+        }
+
+        // the central directory only carries zip64 values for the fields that overflow
+        boolean bigSize = size >= MAX_32;
+        boolean bigCompressed = entry.compressed >= MAX_32;
+        boolean bigOffset = entry.offset >= MAX_32;
+        int zip64Length = (bigSize ? 8 : 0) + (bigCompressed ? 8 : 0) + (bigOffset ? 8 : 0);
+        int extraLength = 9 + (zip64Length > 0 ? 4 + zip64Length : 0);
+
+        ByteBuffer header = buffer(46 + entry.name.length + extraLength);
+        header.putInt(CENTRAL_HEADER)
+                .putShort(MADE_BY)
+                .putShort((short) (entry.zip64 || zip64Length > 0 ? 45 : 20))
+                .putShort(UTF8_NAMES)
+                .putShort(entry.stored ? STORED : DEFLATED)
+                .putInt(dosTime(entry.modified))
+                .putInt((int) crc)
+                .putInt(bigCompressed ? (int) MAX_32 : (int) entry.compressed)
+                .putInt(bigSize ? (int) MAX_32 : (int) size)
+                .putShort((short) entry.name.length)
+                .putShort((short) extraLength)
+                .putShort((short) 0)                             // comment
+                .putShort((short) 0)                             // disk
+                .putShort((short) 0)                             // internal attributes
+                .putInt((0100000 | entry.mode) << 16)            // regular file and its permissions
+                .putInt(bigOffset ? (int) MAX_32 : (int) entry.offset)
+                .put(entry.name);
+        putTimestamp(header, entry.modified);
+        if (zip64Length > 0) {
+            header.putShort((short) 0x0001).putShort((short) zip64Length);
+            if (bigSize) {
+                header.putLong(size);
+            }
+            if (bigCompressed) {
+                header.putLong(entry.compressed);
+            }
+            if (bigOffset) {
+                header.putLong(entry.offset);
+            }
+        }
+        centralDirectory.write(header.array(), 0, header.position());
+        entries++;
+    }
+
+    private void writeCentralDirectory(FileChannel out) throws IOException {
+        long offset = out.position();
+        long size = ParallelDeflater.write(out, ByteBuffer.wrap(centralDirectory.toByteArray()));
+
+        boolean zip64 = entries >= 0xFFFF || offset >= MAX_32 || size >= MAX_32;
+        if (zip64) {
+            long zip64End = out.position();
+            ByteBuffer record = buffer(56 + 20);
+            record.putInt(ZIP64_END)
+                    .putLong(44)                                 // size of the rest of this record
+                    .putShort(MADE_BY)
+                    .putShort((short) 45)
+                    .putInt(0)                                   // this disk
+                    .putInt(0)                                   // disk of the central directory
+                    .putLong(entries)
+                    .putLong(entries)
+                    .putLong(size)
+                    .putLong(offset);
+            record.putInt(ZIP64_LOCATOR)
+                    .putInt(0)
+                    .putLong(zip64End)
+                    .putInt(1);                                  // total disks
+            ParallelDeflater.write(out, record.flip());
+        }
+
+        ByteBuffer end = buffer(22);
+        end.putInt(END)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) Math.min(entries, 0xFFFF))
+                .putShort((short) Math.min(entries, 0xFFFF))
+                .putInt(zip64 ? (int) MAX_32 : (int) size)
+                .putInt(zip64 ? (int) MAX_32 : (int) offset)
+                .putShort((short) 0);                           // comment
+        ParallelDeflater.write(out, end.flip());
+    }
+
+    // the "UT" extra field: modification time in utc seconds, which the dos time cannot hold
+    private static void putTimestamp(ByteBuffer header, long modified) {
+        header.putShort((short) 0x5455).putShort((short) 5).put((byte) 1).putInt((int) (modified / 1000));
+    }
+
+    // local time in 2 second steps, the oldest date zip knows is 1980
+    private static int dosTime(long modified) {
+        LocalDateTime time = LocalDateTime.ofInstant(java.time.Instant.ofEpochMilli(modified), ZoneId.systemDefault());
+        if (time.getYear() < 1980) {
+            time = LocalDateTime.of(1980, 1, 1, 0, 0);
+        }
+        int dosTime = (time.getHour() << 11) | (time.getMinute() << 5) | (time.getSecond() / 2);
+        int dosDate = ((time.getYear() - 1980) << 9) | (time.getMonthValue() << 5) | time.getDayOfMonth();
+        return (dosDate << 16) | dosTime;
+    }
+
+    private static ByteBuffer buffer(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,5 @@
+package org.example.enumeration;
+
+public enum ArchiveFormat {
+    ZIP, TGZ
+}
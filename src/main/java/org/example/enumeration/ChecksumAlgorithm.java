@@ -0,0 +1,5 @@
+package org.example.enumeration;
+
+public enum ChecksumAlgorithm {
+    CRC32C, XXHASH, SHA256
+}
@@ -0,0 +1,5 @@
+package org.example.enumeration;
+
+public enum IndexMode {
+    NONE, USE, REBUILD
+}
@@ -0,0 +1,5 @@
+package org.example.enumeration;
+
+public enum StatsFormat {
+    TEXT, JSON
+}